@@ -1,24 +1,55 @@
 package de.hitec.nhplus;
 
 import de.hitec.nhplus.datastorage.ConnectionBuilder;
+import de.hitec.nhplus.datastorage.RetentionService;
+import de.hitec.nhplus.datastorage.SchemaMigrator;
+import de.hitec.nhplus.datastorage.WriteBehindQueue;
+import de.hitec.nhplus.utils.SessionManager;
 
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.input.InputEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.sql.SQLException;
 
 public class Main extends Application {
 
     private static Stage primaryStage;
 
+    /**
+     * Brings the database up to date and shows the login. The migration runs on the JavaFX application thread before
+     * the stage is shown, so no view can read the database before its schema is current; after an update of the
+     * application the first start may therefore take a moment. If the migration fails, the application cannot work
+     * with the database, so an error is shown and the application exits.
+     *
+     * @param primaryStage the stage of the application
+     */
     @Override
     public void start(Stage primaryStage) {
         Main.primaryStage = primaryStage;
+        try {
+            SchemaMigrator.migrate();
+        } catch (SQLException exception) {
+            System.out.println("Datenbank konnte nicht migriert werden!");
+            exception.printStackTrace();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Fehler");
+            alert.setHeaderText("Datenbank konnte nicht migriert werden!");
+            alert.setContentText(exception.getMessage());
+            alert.showAndWait();
+            ConnectionBuilder.closeConnection();
+            Platform.exit();
+            return;
+        }
+        RetentionService.start();
         mainWindow();
     }
 
@@ -28,12 +59,21 @@ public class Main extends Application {
             AnchorPane pane = loader.load();
 
             Scene scene = new Scene(pane);
+            scene.addEventFilter(InputEvent.ANY, event -> SessionManager.touchCurrentSession());
+            SessionManager.addExpiryListener(session -> Platform.runLater(() -> {
+                // The main window is the only view with a BorderPane as root.
+                if (SessionManager.getCurrentUser() == null && primaryStage.getScene().getRoot() instanceof BorderPane) {
+                    showLogin();
+                }
+            }));
             primaryStage.setTitle("NHPlus");
             primaryStage.setScene(scene);
             primaryStage.setResizable(false);
             primaryStage.show();
 
             primaryStage.setOnCloseRequest(event -> {
+                WriteBehindQueue.flushAll();
+                RetentionService.stop();
                 ConnectionBuilder.closeConnection();
                 Platform.exit();
                 System.exit(0);
@@ -55,6 +95,21 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Switches back to the login screen, e.g. after a logout or when the session of the user has expired.
+     */
+    public static void showLogin() {
+        try {
+            FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/LoginView.fxml"));
+            Parent root = loader.load();
+
+            primaryStage.getScene().setRoot(root);
+            primaryStage.sizeToScene();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -1,14 +1,15 @@
 package de.hitec.nhplus.controller;
 
-import at.favre.lib.crypto.bcrypt.BCrypt;
+import de.hitec.nhplus.datastorage.AsyncDao;
+import de.hitec.nhplus.datastorage.CredentialService;
 import de.hitec.nhplus.datastorage.DaoFactory;
 import de.hitec.nhplus.datastorage.AdminDao;
+import de.hitec.nhplus.datastorage.PagedObservableList;
+import de.hitec.nhplus.datastorage.WriteBehindQueue;
 import de.hitec.nhplus.model.Admin;
 import de.hitec.nhplus.utils.DateConverter;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
@@ -17,7 +18,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 
-import java.sql.SQLException;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,8 +64,9 @@ public class AllAdminController {
     @FXML
     private TextField txtPassword;
 
-    private final ObservableList<Admin> admins = FXCollections.observableArrayList();
+    private PagedObservableList<Admin> admins;
     private AdminDao dao;
+    private WriteBehindQueue<Admin> updates;
 
     /**
      * Initializes the controller class. This method is automatically called after
@@ -73,6 +75,9 @@ public class AllAdminController {
      * for UI controls such as text fields and buttons.
      */
     public void initialize() {
+        this.dao = DaoFactory.getDaoFactory().createAdminDao();
+        this.admins = PagedObservableList.of(this.dao, "id");
+        this.updates = new WriteBehindQueue<>(this.dao, Admin::getAid);
         this.readAllAndShowInTableView();
 
         this.colID.setCellValueFactory(new PropertyValueFactory<>("aid"));
@@ -87,6 +92,11 @@ public class AllAdminController {
 
         //Anzeigen der Daten
         this.tableView.setItems(this.admins);
+        this.updates.bind(this.tableView);
+        this.admins.bindSorting(this.tableView, Map.of(
+                this.colID, "id",
+                this.colFirstName, "firstname",
+                this.colSurname, "surname"));
 
         this.btnDelete.setDisable(true);
         this.tableView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Admin>() {
@@ -130,32 +140,21 @@ public class AllAdminController {
     }
 
     /**
-     * Persists updates to Admin objects when a cell in the TableView is edited.
-     * It calls the {@link AdminDao#update(Admin)} method.
+     * Enqueues an Admin object when a cell in the TableView is edited. The {@link WriteBehindQueue}
+     * persists the edits of the table together, using the {@link AdminDao#updateAll(java.util.List)} method.
      *
      * @param event the edit event containing the updated Admin object
      */
     private void doUpdate(TableColumn.CellEditEvent<Admin, String> event) {
-        try {
-            this.dao.update(event.getRowValue());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.updates.enqueue(event.getRowValue());
     }
 
     /**
-     * Loads all Admin entries from the database and displays them in the TableView.
-     * It uses the {@link AdminDao#readAll()} method to retrieve data and updates
-     * the observable list that backs the TableView.
+     * Reloads the Admin entries displayed in the TableView. The list backing the TableView
+     * reads them page by page using {@link AdminDao#readPage(String, boolean, long, int)}.
      */
     private void readAllAndShowInTableView() {
-        this.admins.clear();
-        this.dao = DaoFactory.getDaoFactory().createAdminDao();
-        try {
-            this.admins.addAll(this.dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.admins.refresh();
     }
 
     /**
@@ -167,33 +166,28 @@ public class AllAdminController {
     public void handleDelete() {
         Admin selectedItem = this.tableView.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            try {
-                DaoFactory.getDaoFactory().createAdminDao().deleteById(selectedItem.getAid());
-                this.tableView.getItems().remove(selectedItem);
-            } catch (SQLException exception) {
-                exception.printStackTrace();
-            }
+            AdminDao adminDao = DaoFactory.getDaoFactory().createAdminDao();
+            this.updates.discard(selectedItem.getAid());
+            AsyncDao.run(() -> adminDao.deleteById(selectedItem.getAid()))
+                    .thenRun(this.admins::refresh)
+                    .exceptionally(AsyncDao::logFailure);
         }
     }
 
     /**
      * Handles the add button action. It creates a new Admin entry using input
-     * from the text fields, hashes the password with BCrypt, and saves the entry
+     * from the text fields, hashes the password with the {@link CredentialService}, and saves the entry
      * using {@link AdminDao#create(Admin)}.
-     * The TableView is updated and input fields are cleared afterwards.
+     * The persisted admin is appended to the TableView and input fields are cleared afterwards.
      */
     @FXML
     public void handleAdd() {
         String surname = this.txfSurname.getText();
         String firstName = this.txfFirstname.getText();
         String plainPassword = this.txtPassword.getText();
-        String bcryptHashString = BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
-        try {
-            this.dao.create(new Admin(firstName, surname, bcryptHashString));
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-        readAllAndShowInTableView();
+        AsyncDao.supply(() -> this.dao.create(new Admin(firstName, surname, CredentialService.hashPassword(plainPassword))))
+                .thenAccept(this.admins::append)
+                .exceptionally(AsyncDao::logFailure);
         clearTextfields();
     }
 
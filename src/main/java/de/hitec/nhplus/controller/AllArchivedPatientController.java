@@ -2,15 +2,14 @@ package de.hitec.nhplus.controller;
 
 import de.hitec.nhplus.Main;
 import de.hitec.nhplus.datastorage.ArchivePatientDao;
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
+import de.hitec.nhplus.datastorage.PagedObservableList;
 import de.hitec.nhplus.datastorage.PatientDao;
 import de.hitec.nhplus.model.Patient;
-import de.hitec.nhplus.model.Treatment;
 import de.hitec.nhplus.utils.DateConverter;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -24,8 +23,8 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Map;
 
 
 /**
@@ -55,10 +54,10 @@ public class AllArchivedPatientController {
     private TableColumn<Patient, String> columnRoomNumber;
 
     @FXML
-    private TableColumn<Treatment, String> columnStatus;
+    private TableColumn<Patient, String> columnStatus;
 
     @FXML
-    private TableColumn<Treatment, String> columnDeleteDate;
+    private TableColumn<Patient, String> columnDeleteDate;
 
     @FXML
     private Button buttonDelete;
@@ -84,7 +83,7 @@ public class AllArchivedPatientController {
     @FXML
     private Button buttonFullCompletion;
 
-    private final ObservableList<Patient> patients = FXCollections.observableArrayList();
+    private PagedObservableList<Patient> patients;
     private ArchivePatientDao dao;
 
 
@@ -94,7 +93,8 @@ public class AllArchivedPatientController {
      * configured.
      */
     public void initialize() {
-
+        this.dao = DaoFactory.getDaoFactory().createArchivePatientDao();
+        this.patients = PagedObservableList.of(this.dao, "pid");
 
         this.readAllAndShowInTableView();
         
@@ -116,6 +116,10 @@ public class AllArchivedPatientController {
 
         //Anzeigen der Daten
         this.tableView.setItems(this.patients);
+        this.patients.bindSorting(this.tableView, Map.of(
+                this.columnId, "pid",
+                this.columnSurname, "surname",
+                this.columnDeleteDate, "dateOfDelete"));
     }
 
     /**
@@ -179,42 +183,31 @@ public class AllArchivedPatientController {
      * @param event Event including the changed object and the change.
      */
     private void doUpdate(TableColumn.CellEditEvent<Patient, String> event) {
-        try {
-            this.dao.update(event.getRowValue());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        Patient patient = event.getRowValue();
+        AsyncDao.run(() -> this.dao.update(patient))
+                .exceptionally(AsyncDao::logFailure);
     }
 
     /**
-     * Reloads all patients to the table by clearing the list of all patients and filling it again by all persisted
-     * patients, delivered by {@link PatientDao}.
+     * Reloads the archived patients shown in the table. The patients are read page by page in the background, only
+     * the pages the table shows.
      */
     public void readAllAndShowInTableView() {
-        this.patients.clear();
-        this.dao = DaoFactory.getDaoFactory().createArchivePatientDao();
-        try {
-            this.patients.addAll(this.dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.patients.refresh();
     }
 
     /**
-     * This method handles events fired by the button to delete patients. It calls {@link PatientDao} to delete the
-     * patient from the database and removes the object from the list, which is the data source of the
+     * This method handles events fired by the button to delete patients. It calls {@link ArchivePatientDao} to delete
+     * the archived patient, together with its archived treatments, from the database and reloads the
      * <code>TableView</code>.
      */
     @FXML
     public void handleDelete() {
         Patient selectedItem = this.tableView.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            try {
-                DaoFactory.getDaoFactory().createPatientDAO().deleteById(selectedItem.getPid());
-                this.tableView.getItems().remove(selectedItem);
-            } catch (SQLException exception) {
-                exception.printStackTrace();
-            }
+            AsyncDao.run(() -> this.dao.deleteById(selectedItem.getPid()))
+                    .thenRun(this.patients::refresh)
+                    .exceptionally(AsyncDao::logFailure);
         }
     }
 
@@ -231,12 +224,10 @@ public class AllArchivedPatientController {
         LocalDate date = DateConverter.convertStringToLocalDate(birthday);
         String careLevel = this.textFieldCareLevel.getText();
         String roomNumber = this.textFieldRoomNumber.getText();
-        try {
-            this.dao.create(new Patient(firstName, surname, date, careLevel, roomNumber, false));
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-        readAllAndShowInTableView();
+        Patient patient = new Patient(firstName, surname, date, careLevel, roomNumber, false);
+        AsyncDao.run(() -> this.dao.create(patient))
+                .thenRun(this::readAllAndShowInTableView)
+                .exceptionally(AsyncDao::logFailure);
         clearTextfields();
     }
 
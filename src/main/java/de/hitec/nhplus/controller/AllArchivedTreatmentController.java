@@ -2,12 +2,15 @@ package de.hitec.nhplus.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hitec.nhplus.Main;
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
+import de.hitec.nhplus.datastorage.PagedObservableList;
 import de.hitec.nhplus.datastorage.PatientDao;
 import de.hitec.nhplus.datastorage.TreatmentArchiveDao;
-import de.hitec.nhplus.datastorage.TreatmentDao;
 import de.hitec.nhplus.model.Patient;
-import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentSearchHit;
+import de.hitec.nhplus.model.TreatmentSummary;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -21,41 +24,52 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Map;
 
 public class AllArchivedTreatmentController {
 
     @FXML
-    private TableView<Treatment> tableView;
+    private TableView<TreatmentSummary> tableView;
 
     @FXML
-    private TableColumn<Treatment, Integer> columnId;
+    private TableColumn<TreatmentSummary, Integer> columnId;
 
     @FXML
-    private TableColumn<Treatment, Integer> columnPid;
+    private TableColumn<TreatmentSummary, Integer> columnPid;
 
     @FXML
-    private TableColumn<Treatment, String> columnDate;
+    private TableColumn<TreatmentSummary, String> columnDate;
 
     @FXML
-    private TableColumn<Treatment, String> columnBegin;
+    private TableColumn<TreatmentSummary, String> columnBegin;
 
     @FXML
-    private TableColumn<Treatment, String> columnEnd;
+    private TableColumn<TreatmentSummary, String> columnEnd;
 
     @FXML
-    private TableColumn<Treatment, String> columnDescription;
+    private TableColumn<TreatmentSummary, String> columnDescription;
 
     @FXML
-    private TableColumn<Treatment, String> columnStatus;
-    
-    private final ObservableList<Treatment> treatments = FXCollections.observableArrayList();
+    private TableColumn<TreatmentSummary, String> columnStatus;
+
+    @FXML
+    private TableColumn<TreatmentSummary, String> columnSnippet;
+
+    @FXML
+    private TextField textFieldSearch;
+
+    private static final int MAX_SEARCH_HITS = 200;
+
+    private PagedObservableList<TreatmentSummary> treatments;
+    private final ObservableList<TreatmentSummary> searchHits = FXCollections.observableArrayList();
     private TreatmentArchiveDao dao;
     private final ObservableList<String> patientSelection = FXCollections.observableArrayList();
     private ArrayList<Patient> patientList;
 
     public void initialize() {
+        this.dao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
+        this.treatments = new PagedObservableList<>(this.dao::count, this.dao::readSummaryPage, "tid");
         readAllAndShowInTableView();
 
         this.columnId.setCellValueFactory(new PropertyValueFactory<>("tid"));
@@ -65,17 +79,43 @@ public class AllArchivedTreatmentController {
         this.columnEnd.setCellValueFactory(new PropertyValueFactory<>("end"));
         this.columnDescription.setCellValueFactory(new PropertyValueFactory<>("description"));
         this.columnStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
-        this.tableView.setItems(this.treatments);
+        this.columnSnippet.setCellValueFactory(cell -> new SimpleStringProperty(
+                cell.getValue() instanceof TreatmentSearchHit hit ? hit.getSnippet() : ""));
+        this.treatments.bindSorting(this.tableView, Map.of(
+                this.columnId, "tid",
+                this.columnPid, "pid",
+                this.columnDate, "treatment_date"));
     }
 
+    /**
+     * Shows all archived treatments. The archive is read page by page while the table is scrolled, so the view opens
+     * quickly even with a large archive.
+     */
     public void readAllAndShowInTableView() {
-        this.treatments.clear();
-        this.dao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
-        try {
-            this.treatments.addAll(dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+        this.tableView.setItems(this.treatments);
+        this.treatments.refresh();
+    }
+
+    /**
+     * Searches the descriptions and remarks of all archived treatments for the words in the search field and shows
+     * the hits, the best matching first. An empty search field shows all archived treatments again.
+     */
+    @FXML
+    public void handleSearch() {
+        String text = this.textFieldSearch.getText();
+        if (text == null || text.isBlank()) {
+            readAllAndShowInTableView();
+            return;
         }
+        TreatmentArchiveDao treatmentArchiveDao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
+        AsyncDao.supply(() -> treatmentArchiveDao.search(text, MAX_SEARCH_HITS))
+                .thenAccept(hits -> {
+                    if (text.equals(this.textFieldSearch.getText())) {
+                        this.searchHits.setAll(hits);
+                        this.tableView.setItems(this.searchHits);
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
     }
 
     private Patient searchInList(String surname) {
@@ -89,22 +129,23 @@ public class AllArchivedTreatmentController {
 
     @FXML
     public void handleDelete() {
-        int index = this.tableView.getSelectionModel().getSelectedIndex();
-        Treatment t = this.treatments.remove(index);
-        TreatmentDao dao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
-            dao.deleteById(t.getTid());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+        TreatmentSummary t = this.tableView.getSelectionModel().getSelectedItem();
+        if (t == null) {
+            return;
+        }
+        if (this.tableView.getItems() == this.searchHits) {
+            this.searchHits.remove(t);
         }
+        AsyncDao.run(() -> this.dao.deleteById(t.getTid()))
+                .thenRun(this.treatments::refresh)
+                .exceptionally(AsyncDao::logFailure);
     }
 
     @FXML
     public void handleMouseClick() {
         tableView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && (tableView.getSelectionModel().getSelectedItem() != null)) {
-                int index = this.tableView.getSelectionModel().getSelectedIndex();
-                Treatment treatment = this.treatments.get(index);
+                TreatmentSummary treatment = this.tableView.getSelectionModel().getSelectedItem();
             }
         });
     }
@@ -1,15 +1,16 @@
 package de.hitec.nhplus.controller;
 
-import at.favre.lib.crypto.bcrypt.BCrypt;
+import de.hitec.nhplus.datastorage.AsyncDao;
+import de.hitec.nhplus.datastorage.CredentialService;
 import de.hitec.nhplus.datastorage.DaoFactory;
 import de.hitec.nhplus.datastorage.NurseDao;
+import de.hitec.nhplus.datastorage.PagedObservableList;
+import de.hitec.nhplus.datastorage.WriteBehindQueue;
 import de.hitec.nhplus.model.Nurse;
 import de.hitec.nhplus.utils.DateConverter;
 import de.hitec.nhplus.utils.SessionManager;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
@@ -18,7 +19,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 
-import java.sql.SQLException;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -76,8 +77,9 @@ public class AllNurseController {
 
 
 
-    private final ObservableList<Nurse> nurses = FXCollections.observableArrayList();
+    private PagedObservableList<Nurse> nurses;
     private NurseDao dao;
+    private WriteBehindQueue<Nurse> updates;
 
     /**
      * Initializes the controller after FXML loading.
@@ -110,11 +112,20 @@ public class AllNurseController {
     }
 
     /**
-     * Loads nurse data from the database and binds it to the TableView.
+     * Binds the nurses to the TableView, which reads them page by page from the database and sorts them there.
      */
     private void loadAndShowData() {
+        this.dao = DaoFactory.getDaoFactory().createNurseDao();
+        this.nurses = PagedObservableList.of(this.dao, "id");
+        this.updates = new WriteBehindQueue<>(this.dao, Nurse::getNid);
         readAllAndShowInTableView();
         tableView.setItems(nurses);
+        updates.bind(tableView);
+        nurses.bindSorting(tableView, Map.of(
+                colID, "id",
+                colFirstName, "firstname",
+                colSurname, "surname",
+                colTelephone, "phoneNumber"));
     }
 
     /**
@@ -214,31 +225,21 @@ public class AllNurseController {
     }
 
     /**
-     * Persists changes made to a nurse object after a cell edit event.
-     * Uses the {@link NurseDao#update(Nurse)} method.
+     * Enqueues a nurse object after a cell edit event. The {@link WriteBehindQueue} persists
+     * the edits of the table together, using the {@link NurseDao#updateAll(java.util.List)} method.
      *
      * @param event the edit event containing the modified Nurse object
      */
     private void doUpdate(TableColumn.CellEditEvent<Nurse, String> event) {
-        try {
-            this.dao.update(event.getRowValue());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.updates.enqueue(event.getRowValue());
     }
 
     /**
-     * Reloads all nurse entries from the database using {@link NurseDao#readAll()},
-     * clears the current list, and populates the TableView.
+     * Reloads the nurse entries shown in the TableView. They are read in the background, page by page
+     * using {@link NurseDao#readPage(String, boolean, long, int)}.
      */
     private void readAllAndShowInTableView() {
-        this.nurses.clear();
-        this.dao = DaoFactory.getDaoFactory().createNurseDao();
-        try {
-            this.nurses.addAll(this.dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.nurses.refresh();
     }
 
     /**
@@ -249,18 +250,17 @@ public class AllNurseController {
     public void handleDelete() {
         Nurse selectedItem = this.tableView.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            try {
-                DaoFactory.getDaoFactory().createNurseDao().deleteById(selectedItem.getNid());
-                this.tableView.getItems().remove(selectedItem);
-            } catch (SQLException exception) {
-                exception.printStackTrace();
-            }
+            NurseDao nurseDao = DaoFactory.getDaoFactory().createNurseDao();
+            this.updates.discard(selectedItem.getNid());
+            AsyncDao.run(() -> nurseDao.deleteById(selectedItem.getNid()))
+                    .thenRun(this.nurses::refresh)
+                    .exceptionally(AsyncDao::logFailure);
         }
     }
 
     /**
-     * Adds a new nurse entry to the database and refreshes the TableView.
-     * Collects values from input fields, hashes the password using BCrypt,
+     * Adds a new nurse entry to the database and appends it to the TableView.
+     * Collects values from input fields, hashes the password with the {@link CredentialService},
      * and creates a new {@link Nurse} object.
      */
     @FXML
@@ -269,13 +269,9 @@ public class AllNurseController {
         String firstName = this.txfFirstname.getText();
         String phoneNumber = this.txfTelephone.getText();
         String plainPassword = this.txtPassword.getText();
-        String bcryptHashString = BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
-        try {
-            this.dao.create(new Nurse(firstName, surname, phoneNumber, bcryptHashString));
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-        readAllAndShowInTableView();
+        AsyncDao.supply(() -> this.dao.create(new Nurse(firstName, surname, phoneNumber, CredentialService.hashPassword(plainPassword))))
+                .thenAccept(this.nurses::append)
+                .exceptionally(AsyncDao::logFailure);
         clearTextfields();
     }
 
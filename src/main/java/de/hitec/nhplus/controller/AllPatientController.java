@@ -2,17 +2,19 @@ package de.hitec.nhplus.controller;
 
 import de.hitec.nhplus.Main;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
+import de.hitec.nhplus.datastorage.PagedObservableList;
 import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.WriteBehindQueue;
 import de.hitec.nhplus.model.Treatment;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -28,8 +30,9 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 
 /**
@@ -88,8 +91,9 @@ public class AllPatientController {
     @FXML
     private Button buttonFullCompletion;
 
-    private final ObservableList<Patient> patients = FXCollections.observableArrayList();
+    private PagedObservableList<Patient> patients;
     private PatientDao dao;
+    private WriteBehindQueue<Patient> updates;
 
 
     /**
@@ -98,7 +102,9 @@ public class AllPatientController {
      * configured.
      */
     public void initialize() {
-
+        this.dao = DaoFactory.getDaoFactory().createPatientDAO();
+        this.patients = PagedObservableList.of(this.dao, "pid");
+        this.updates = new WriteBehindQueue<>(this.dao, Patient::getPid);
 
         this.readAllAndShowInTableView();
 
@@ -133,6 +139,15 @@ public class AllPatientController {
 
         //Anzeigen der Daten
         this.tableView.setItems(this.patients);
+        this.updates.bind(this.tableView);
+        this.patients.bindSorting(this.tableView, Map.of(
+                this.columnId, "pid",
+                this.columnFirstName, "firstname",
+                this.columnSurname, "surname",
+                this.columnDateOfBirth, "dateOfBirth",
+                this.columnCareLevel, "carelevel",
+                this.columnRoomNumber, "roomnumber",
+                this.columnStatus, "status"));
 
         this.buttonDelete.setDisable(true);
         this.tableView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Patient>() {
@@ -176,11 +191,23 @@ public class AllPatientController {
 
     /**
      * When a cell of the column with dates of birth was changed, this method will be called, to persist the change.
+     * A date which cannot be parsed is rejected and the old date is shown again.
      *
      * @param event Event including the changed object and the change.
      */
     @FXML
     public void handleOnEditDateOfBirth(TableColumn.CellEditEvent<Patient, String> event) {
+        try {
+            DateConverter.convertStringToLocalDate(event.getNewValue());
+        } catch (DateTimeParseException exception) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Fehler");
+            alert.setHeaderText("Ungültiges Geburtsdatum!");
+            alert.setContentText("Bitte das Datum im Format JJJJ-MM-TT eingeben.");
+            alert.showAndWait();
+            this.tableView.refresh();
+            return;
+        }
         event.getRowValue().setDateOfBirth(event.getNewValue());
         this.doUpdate(event);
     }
@@ -209,8 +236,10 @@ public class AllPatientController {
 
     @FXML
     public void handleCompletion(){
-        int index = this.tableView.getSelectionModel().getSelectedIndex();
-        Patient patient = this.patients.get(index);
+        Patient patient = this.tableView.getSelectionModel().getSelectedItem();
+        if (patient == null) {
+            return;
+        }
         CompletionTreatmentWindow(patient);
     }
 
@@ -234,30 +263,21 @@ public class AllPatientController {
     }
 
     /**
-     * Updates a patient by calling the method <code>update()</code> of {@link PatientDao}.
+     * Enqueues the changed patient, which is written to the database together with the other edits of the table
+     * by {@link WriteBehindQueue}.
      *
      * @param event Event including the changed object and the change.
      */
     private void doUpdate(TableColumn.CellEditEvent<Patient, String> event) {
-        try {
-            this.dao.update(event.getRowValue());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.updates.enqueue(event.getRowValue());
     }
 
     /**
-     * Reloads all patients to the table by clearing the list of all patients and filling it again by all persisted
-     * patients, delivered by {@link PatientDao}.
+     * Reloads the patients shown in the table. The patients are read page by page in the background by
+     * {@link PatientDao}, only the pages the table shows.
      */
     public void readAllAndShowInTableView() {
-        this.patients.clear();
-        this.dao = DaoFactory.getDaoFactory().createPatientDAO();
-        try {
-            this.patients.addAll(this.dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.patients.refresh();
     }
 
     /**
@@ -269,19 +289,18 @@ public class AllPatientController {
     public void handleDelete() {
         Patient selectedItem = this.tableView.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            try {
-                DaoFactory.getDaoFactory().createPatientDAO().deleteById(selectedItem.getPid());
-                this.tableView.getItems().remove(selectedItem);
-            } catch (SQLException exception) {
-                exception.printStackTrace();
-            }
+            PatientDao patientDao = DaoFactory.getDaoFactory().createPatientDAO();
+            this.updates.discard(selectedItem.getPid());
+            AsyncDao.run(() -> patientDao.deleteById(selectedItem.getPid()))
+                    .thenRun(this.patients::refresh)
+                    .exceptionally(AsyncDao::logFailure);
         }
     }
 
     /**
      * This method handles the events fired by the button to add a patient. It collects the data from the
      * <code>TextField</code>s, creates an object of class <code>Patient</code> of it and passes the object to
-     * {@link PatientDao} to persist the data.
+     * {@link PatientDao} to persist the data. The persisted patient is appended to the table afterwards.
      */
     @FXML
     public void handleAdd() {
@@ -291,12 +310,10 @@ public class AllPatientController {
         LocalDate date = DateConverter.convertStringToLocalDate(birthday);
         String careLevel = this.textFieldCareLevel.getText();
         String roomNumber = this.textFieldRoomNumber.getText();
-        try {
-            this.dao.create(new Patient(firstName, surname, date, careLevel, roomNumber, false));
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-        readAllAndShowInTableView();
+        Patient patient = new Patient(firstName, surname, date, careLevel, roomNumber, false);
+        AsyncDao.supply(() -> this.dao.create(patient))
+                .thenAccept(this.patients::append)
+                .exceptionally(AsyncDao::logFailure);
         clearTextfields();
     }
 
@@ -1,9 +1,12 @@
 package de.hitec.nhplus.controller;
 
 import de.hitec.nhplus.Main;
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
-import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.PagedObservableList;
+import de.hitec.nhplus.datastorage.PatientIndex;
 import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.datastorage.TreatmentIndex;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,15 +18,22 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 import de.hitec.nhplus.model.Patient;
 import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentSearchHit;
+import de.hitec.nhplus.model.TreatmentSummary;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.controlsfx.control.textfield.AutoCompletionBinding;
+import org.controlsfx.control.textfield.TextFields;
 
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static de.hitec.nhplus.model.Treatment.getStatusLabel;
 
@@ -34,31 +44,37 @@ import static de.hitec.nhplus.model.Treatment.getStatusLabel;
 public class AllTreatmentController {
 
     @FXML
-    private TableView<Treatment> tableView;
+    private TableView<TreatmentSummary> tableView;
 
     @FXML
-    private TableColumn<Treatment, Integer> columnId;
+    private TableColumn<TreatmentSummary, Integer> columnId;
 
     @FXML
-    private TableColumn<Treatment, Integer> columnPid;
+    private TableColumn<TreatmentSummary, Integer> columnPid;
 
     @FXML
-    private TableColumn<Treatment, String> columnDate;
+    private TableColumn<TreatmentSummary, String> columnDate;
 
     @FXML
-    private TableColumn<Treatment, String> columnBegin;
+    private TableColumn<TreatmentSummary, String> columnBegin;
 
     @FXML
-    private TableColumn<Treatment, String> columnEnd;
+    private TableColumn<TreatmentSummary, String> columnEnd;
 
     @FXML
-    private TableColumn<Treatment, String> columnDescription;
+    private TableColumn<TreatmentSummary, String> columnDescription;
 
     @FXML
-    private TableColumn<Treatment, String> columnStatus;
+    private TableColumn<TreatmentSummary, String> columnStatus;
 
     @FXML
-    private ComboBox<String> comboBoxPatientSelection;
+    private TableColumn<TreatmentSummary, String> columnSnippet;
+
+    @FXML
+    private TextField textFieldPatient;
+
+    @FXML
+    private TextField textFieldSearch;
 
     @FXML
     private Button buttonDelete;
@@ -69,19 +85,22 @@ public class AllTreatmentController {
     @FXML
     private Button buttonExport;
 
-    private final ObservableList<Treatment> treatments = FXCollections.observableArrayList();
+    private static final int MAX_SEARCH_HITS = 200;
+    private static final int MAX_PATIENT_SUGGESTIONS = 20;
+
+    private PagedObservableList<TreatmentSummary> treatments;
+    private final ObservableList<TreatmentSummary> filteredTreatments = FXCollections.observableArrayList();
     private TreatmentDao dao;
-    private final ObservableList<String> patientSelection = FXCollections.observableArrayList();
-    private ArrayList<Patient> patientList;
+    private Patient selectedPatient;
 
     /**
      * Initializes the controller and its components after the FXML has been loaded.
-     * Sets up table columns, combo box data, event listeners and displays all treatments.
+     * Sets up table columns, the patient autocompletion, event listeners and displays all treatments.
      */
     public void initialize() {
+        this.dao = DaoFactory.getDaoFactory().createTreatmentDao();
+        this.treatments = new PagedObservableList<>(this.dao::count, this.dao::readSummaryPage, "tid");
         readAllAndShowInTableView();
-        comboBoxPatientSelection.setItems(patientSelection);
-        comboBoxPatientSelection.getSelectionModel().select(0);
 
         this.columnId.setCellValueFactory(new PropertyValueFactory<>("tid"));
         this.columnPid.setCellValueFactory(new PropertyValueFactory<>("pid"));
@@ -90,7 +109,12 @@ public class AllTreatmentController {
         this.columnEnd.setCellValueFactory(new PropertyValueFactory<>("end"));
         this.columnDescription.setCellValueFactory(new PropertyValueFactory<>("description"));
         this.columnStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
-        this.tableView.setItems(this.treatments);
+        this.columnSnippet.setCellValueFactory(cell -> new SimpleStringProperty(
+                cell.getValue() instanceof TreatmentSearchHit hit ? hit.getSnippet() : ""));
+        this.treatments.bindSorting(this.tableView, Map.of(
+                this.columnId, "tid",
+                this.columnPid, "pid",
+                this.columnDate, "treatment_date"));
 
         // Disabling the button to delete treatments as long, as no treatment was selected.
         this.buttonDelete.setDisable(true);
@@ -104,82 +128,129 @@ public class AllTreatmentController {
                     this.buttonExport.setDisable(true);
                 }
         );
-        this.createComboBoxData();
+        this.bindPatientAutoCompletion();
     }
 
     /**
-     * Reads all treatments from the database and shows them in the table view.
-     * Also resets the combo box selection to "alle".
+     * Shows the summaries of all treatments in the table view. Also resets the patient selection, so the treatments
+     * of all patients are shown.
      */
     public void readAllAndShowInTableView() {
-        comboBoxPatientSelection.getSelectionModel().select(0);
-        this.treatments.clear();
-        this.dao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
-            this.treatments.addAll(dao.readAll());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.textFieldPatient.clear();
+        showTreatmentsOf(null);
     }
 
 
     /**
-     * Populates the combo box with the surnames of all patients and a default "alle" entry.
+     * Appends a newly created treatment to the table view, if it belongs to the currently shown patient
+     * or all treatments are shown.
+     *
+     * @param treatment the persisted treatment
      */
-    private void createComboBoxData() {
-        PatientDao dao = DaoFactory.getDaoFactory().createPatientDAO();
-        try {
-            patientList = (ArrayList<Patient>) dao.readAll();
-            this.patientSelection.add("alle");
-            for (Patient patient : patientList) {
-                this.patientSelection.add(patient.getSurname());
-            }
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+    public void addTreatmentToTableView(Treatment treatment) {
+        if (this.selectedPatient == null) {
+            this.treatments.append(new TreatmentSummary(treatment));
+        } else if (this.selectedPatient.getPid() == treatment.getPid()) {
+            this.filteredTreatments.add(new TreatmentSummary(treatment));
         }
     }
 
-
     /**
-     * Handles selection changes in the combo box and filters treatments based on selected patient.
+     * Binds the autocompletion of the patient field to the {@link PatientIndex}. The suggestions are looked up
+     * in the background while typing; choosing one shows the treatments of that patient.
      */
-    @FXML
-    public void handleComboBox() {
-        String selectedPatient = this.comboBoxPatientSelection.getSelectionModel().getSelectedItem();
-        this.treatments.clear();
-        this.dao = DaoFactory.getDaoFactory().createTreatmentDao();
-
-        if (selectedPatient.equals("alle")) {
+    private void bindPatientAutoCompletion() {
+        PatientIndex index = DaoFactory.getDaoFactory().getPatientIndex();
+        AutoCompletionBinding<Patient> binding = TextFields.bindAutoCompletion(this.textFieldPatient, request -> {
             try {
-                this.treatments.addAll(this.dao.readAll());
+                return index.find(request.getUserText(), MAX_PATIENT_SUGGESTIONS);
             } catch (SQLException exception) {
                 exception.printStackTrace();
+                return List.of();
+            }
+        }, new StringConverter<>() {
+            @Override
+            public String toString(Patient patient) {
+                return patient == null ? "" : patient.getSurname() + ", " + patient.getFirstName() +
+                        " (" + patient.getDateOfBirth() + ")";
             }
-        }
 
-        Patient patient = searchInList(selectedPatient);
-        if (patient != null) {
-            try {
-                this.treatments.addAll(this.dao.readTreatmentsByPid(patient.getPid()));
-            } catch (SQLException exception) {
-                exception.printStackTrace();
+            @Override
+            public Patient fromString(String text) {
+                return null;
             }
+        });
+        binding.setOnAutoCompleted(event -> showTreatmentsOf(event.getCompletion()));
+    }
+
+    /**
+     * Handles the enter key in the patient field. An empty field shows the treatments of all patients. Otherwise
+     * the patient is chosen if the typed text matches exactly one patient.
+     */
+    @FXML
+    public void handlePatientSelection() {
+        String text = this.textFieldPatient.getText();
+        if (text == null || text.isBlank()) {
+            showTreatmentsOf(null);
+            return;
         }
+        PatientIndex index = DaoFactory.getDaoFactory().getPatientIndex();
+        AsyncDao.supply(() -> index.find(text, 2))
+                .thenAccept(patients -> {
+                    if (patients.size() == 1 && text.equals(this.textFieldPatient.getText())) {
+                        showTreatmentsOf(patients.get(0));
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
     }
 
     /**
-     * Searches for a patient in the internal list by surname.
+     * Shows the treatments of the given patient. The treatments of all patients are read page by page while the
+     * table is scrolled, so the view opens quickly even with many treatments. The treatments of a single patient are
+     * taken from the {@link TreatmentIndex}, which only reads the database for the first list shown; a result is
+     * dropped if another patient has been chosen in the meantime.
      *
-     * @param surname the surname of the patient
-     * @return the matching {@link Patient} object or null if not found
+     * @param patient the chosen patient, or {@code null} for the treatments of all patients
      */
-    private Patient searchInList(String surname) {
-        for (Patient patient : this.patientList) {
-            if (patient.getSurname().equals(surname)) {
-                return patient;
-            }
+    private void showTreatmentsOf(Patient patient) {
+        this.selectedPatient = patient;
+        this.textFieldSearch.clear();
+        if (patient == null) {
+            this.tableView.setItems(this.treatments);
+            this.treatments.refresh();
+            return;
+        }
+        TreatmentIndex index = DaoFactory.getDaoFactory().getTreatmentIndex();
+        AsyncDao.supply(() -> index.getSummaries(patient.getPid()))
+                .thenAccept(result -> {
+                    if (patient == this.selectedPatient) {
+                        this.filteredTreatments.setAll(result);
+                        this.tableView.setItems(this.filteredTreatments);
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
+    }
+
+    /**
+     * Searches the descriptions and remarks of all treatments for the words in the search field and shows the hits,
+     * the best matching first. The search runs in the background; a result is dropped if the search field has
+     * changed in the meantime. An empty search field shows the treatments of the selected patient again.
+     */
+    @FXML
+    public void handleSearch() {
+        String text = this.textFieldSearch.getText();
+        if (text == null || text.isBlank()) {
+            showTreatmentsOf(this.selectedPatient);
+            return;
         }
-        return null;
+        AsyncDao.supply(() -> this.dao.search(text, MAX_SEARCH_HITS))
+                .thenAccept(hits -> {
+                    if (text.equals(this.textFieldSearch.getText())) {
+                        this.filteredTreatments.setAll(hits);
+                        this.tableView.setItems(this.filteredTreatments);
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
     }
 
     /**
@@ -187,41 +258,56 @@ public class AllTreatmentController {
      */
     @FXML
     public void handleDelete() {
-        int index = this.tableView.getSelectionModel().getSelectedIndex();
-        Treatment t = this.treatments.remove(index);
-        TreatmentDao dao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
-            dao.deleteById(t.getTid());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+        TreatmentSummary t = this.tableView.getSelectionModel().getSelectedItem();
+        if (t == null) {
+            return;
         }
+        this.filteredTreatments.remove(t);
+        AsyncDao.run(() -> this.dao.deleteById(t.getTid()))
+                .thenRun(this.treatments::refresh)
+                .exceptionally(AsyncDao::logFailure);
     }
 
 
     /**
-     * Opens a dialog to create a new treatment for the selected patient in the combo box.
-     * If no patient is selected, an alert is shown.
+     * Opens a dialog to complete the selected treatment, once the complete treatment has been read.
      */
     @FXML
     public void handleCompletion(){
-        int index = this.tableView.getSelectionModel().getSelectedIndex();
-        Treatment treatment = this.treatments.get(index);
-        CompletionTreatmentWindow(treatment);
+        TreatmentSummary selectedSummary = this.tableView.getSelectionModel().getSelectedItem();
+        if (selectedSummary != null) {
+            readTreatment(selectedSummary, this::CompletionTreatmentWindow);
+        }
+    }
+
+    /**
+     * Reads the complete treatment of a row, including its remarks, in the background and hands it to the given
+     * action on the JavaFX thread.
+     *
+     * @param summary the row of the treatment
+     * @param action  the action to run with the complete treatment
+     */
+    private void readTreatment(TreatmentSummary summary, Consumer<Treatment> action) {
+        AsyncDao.supply(() -> this.dao.read(summary.getTid()))
+                .thenAccept(treatment -> {
+                    if (treatment != null) {
+                        action.accept(treatment);
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
     }
 
     @FXML
     public void handleNewTreatment() {
-        try {
-            String selectedPatient = this.comboBoxPatientSelection.getSelectionModel().getSelectedItem();
-            Patient patient = searchInList(selectedPatient);
-            newTreatmentWindow(patient);
-        } catch (NullPointerException exception) {
+        if (this.selectedPatient == null) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Information");
             alert.setHeaderText("Patient für die Behandlung fehlt!");
-            alert.setContentText("Wählen Sie über die Combobox einen Patienten aus!");
+            alert.setContentText("Wählen Sie über das Patientenfeld einen Patienten aus!");
             alert.showAndWait();
+            return;
         }
+        newTreatmentWindow(this.selectedPatient);
     }
 
 
@@ -231,12 +317,20 @@ public class AllTreatmentController {
      */
     @FXML
     public void handelExport() {
-        Treatment selectedTreatment = tableView.getSelectionModel().getSelectedItem();
-        if (selectedTreatment == null) {
+        TreatmentSummary selectedSummary = tableView.getSelectionModel().getSelectedItem();
+        if (selectedSummary == null) {
             System.out.println("Bitte wählen Sie eine Behandlung aus.");
             return;
         }
+        readTreatment(selectedSummary, this::exportTreatment);
+    }
 
+    /**
+     * Writes the given treatment to a JSON file chosen by the user.
+     *
+     * @param selectedTreatment the complete treatment to export
+     */
+    private void exportTreatment(Treatment selectedTreatment) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Behandlung als JSON exportieren");
         fileChooser.setInitialFileName("behandlung_" + selectedTreatment.getTid() + ".json");
@@ -261,9 +355,7 @@ public class AllTreatmentController {
     public void handleMouseClick() {
         tableView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && (tableView.getSelectionModel().getSelectedItem() != null)) {
-                int index = this.tableView.getSelectionModel().getSelectedIndex();
-                Treatment treatment = this.treatments.get(index);
-                treatmentWindow(treatment);
+                readTreatment(this.tableView.getSelectionModel().getSelectedItem(), this::treatmentWindow);
             }
         });
     }
@@ -294,6 +386,7 @@ public class AllTreatmentController {
 
     /**
      * Opens a modal window to view or edit the details of the selected treatment.
+     * The treatment has to be read completely, see {@link #readTreatment(TreatmentSummary, Consumer)}.
      *
      * @param treatment the treatment to view or edit
      */
@@ -3,16 +3,17 @@ package de.hitec.nhplus.controller;
 import de.hitec.nhplus.datastorage.*;
 
 import de.hitec.nhplus.utils.DateConverter;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.Treatment;
 import javafx.util.StringConverter;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalDate;
 
@@ -54,8 +55,6 @@ public class CompletionPatientController {
     private AllPatientController controller;
     private Patient patient;
     private Stage stage;
-    
-    private final ObservableList<Patient> patients = FXCollections.observableArrayList();
 
     public void initializeController(AllPatientController controller, Stage stage, Patient patient) {
         this.stage = stage;
@@ -64,14 +63,16 @@ public class CompletionPatientController {
         PatientDao pDao = DaoFactory.getDaoFactory().createPatientDAO();
 
 
-        try {
-            this.patient = pDao.read((int) patient.getPid());
-            this.showPatientData();
-
-            showPatientData();
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.patient = patient;
+        this.showPatientData();
+        AsyncDao.supply(() -> pDao.read((int) patient.getPid()))
+                .thenAccept(persistedPatient -> {
+                    if (persistedPatient != null) {
+                        this.patient = persistedPatient;
+                        showPatientData();
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
         this.dateOfDelete.setConverter(new StringConverter<>() {
             @Override
             public String toString(LocalDate localDate) {
@@ -93,27 +94,54 @@ public class CompletionPatientController {
 
     @FXML
     public void handleConfirm() {
-        if((CheckBoxLeave.isSelected() || CheckBoxDead.isSelected())) this.patient.setStatus(true);
-
-        this.patient.setDateOfDelete(this.dateOfDelete.getValue());
+        boolean status = CheckBoxLeave.isSelected() || CheckBoxDead.isSelected() || this.patient.getStatusBool();
+        LocalDate dateOfDelete = this.dateOfDelete.getValue();
+        String comment = CheckBoxLeave.isSelected() ? CheckBoxLeave.getText() :
+                CheckBoxDead.isSelected() ? CheckBoxDead.getText() : "";
 
         areInputDataInvalid();
-        archivePatient(this.patient);
-        controller.readAllAndShowInTableView();
+        Patient patient = this.patient;
+        Patient archived = new Patient(patient.getPid(), patient.getFirstName(), patient.getSurname(),
+                patient.getLocalDateOfBirth(), patient.getCareLevel(), patient.getRoomNumber(), status, dateOfDelete);
+        AsyncDao.run(() -> archivePatient(archived, comment))
+                .thenRun(() -> {
+                    patient.setStatus(status);
+                    patient.setDateOfDelete(dateOfDelete);
+                    controller.readAllAndShowInTableView();
+                })
+                .exceptionally(AsyncDao::logFailure);
         stage.close();
     }
 
-    private void archivePatient(Patient patient) {
-        this.patients.remove(patient);
+    /**
+     * Moves the patient and all of its treatments into the archive. Inserting the archive entries and deleting the
+     * patient and its treatments run in one {@link Transaction}, so nothing is lost or archived twice if a step
+     * fails. The given patient is only a copy with the archive data; the caller applies the changes to the shown
+     * patient once the transaction has been committed.
+     *
+     * @param patient the copy of the patient to archive
+     * @param comment the reason of the archiving, stored with the archived treatments
+     * @throws SQLException if the patient could not be archived
+     */
+    private void archivePatient(Patient patient, String comment) throws SQLException {
         ArchivePatientDao archivePatientDao = DaoFactory.getDaoFactory().createArchivePatientDao();
-
-        ArchivePatientDao tDao = DaoFactory.getDaoFactory().createArchivePatientDao();
-        try {
+        TreatmentArchiveDao treatmentArchiveDao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
+        TreatmentDao treatmentDao = DaoFactory.getDaoFactory().createTreatmentDao();
+        PatientDao patientDao = DaoFactory.getDaoFactory().createPatientDAO();
+        try (Transaction transaction = Transaction.begin()) {
+            List<Treatment> archivedTreatments = new ArrayList<>();
+            List<Long> tids = new ArrayList<>();
+            for (Treatment treatment : treatmentDao.readTreatmentsByPid(patient.getPid())) {
+                archivedTreatments.add(new Treatment(treatment.getTid(), treatment.getPid(), treatment.getLocalDate(),
+                        treatment.getLocalBegin(), treatment.getLocalEnd(), treatment.getDescription(),
+                        treatment.getRemarks(), patient.getStatusBool(), patient.getDateOfDelete(), comment));
+                tids.add(treatment.getTid());
+            }
             archivePatientDao.create(patient);
-            archivePatientDao.autoDeletionExpiredRecords();
-            tDao.deleteById(patient.getPid());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+            treatmentArchiveDao.createAll(archivedTreatments);
+            treatmentDao.deleteAllById(tids);
+            patientDao.deleteById(patient.getPid());
+            transaction.commit();
         }
     }
 
@@ -1,12 +1,13 @@
 package de.hitec.nhplus.controller;
 
+import de.hitec.nhplus.datastorage.ArchivePatientDao;
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.TreatmentArchiveDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
 import de.hitec.nhplus.datastorage.PatientDao;
 import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.datastorage.Transaction;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
@@ -14,6 +15,7 @@ import de.hitec.nhplus.model.Patient;
 import de.hitec.nhplus.model.Treatment;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalDate;
 
@@ -60,23 +62,24 @@ public class CompletionTreatmentController {
     private Stage stage;
     private Treatment treatment;
 
-    private final ObservableList<Treatment> treatments = FXCollections.observableArrayList();
-
     public void initializeController(AllTreatmentController controller, Stage stage, Treatment treatment) {
         this.stage = stage;
         this.controller= controller;
         PatientDao pDao = DaoFactory.getDaoFactory().createPatientDAO();
 
-        try {
-            this.patient = pDao.read((int) treatment.getPid());
-            this.treatment = treatment;
-            treatment.setDateOfDelete(convertStringToLocalDate(treatment.getDate()).plusYears(10));
-            //treatment.getStatusLabel(treatment.getStatus());
+        this.treatment = treatment;
+        treatment.setDateOfDelete(convertStringToLocalDate(treatment.getDate()).plusYears(10));
+        //treatment.getStatusLabel(treatment.getStatus());
 
-            showData();
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        // The patient is read in the background; confirming is possible once all data is shown.
+        this.buttonConfirm.setDisable(true);
+        AsyncDao.supply(() -> pDao.read((int) treatment.getPid()))
+                .thenAccept(patient -> {
+                    this.patient = patient;
+                    showData();
+                    this.buttonConfirm.setDisable(false);
+                })
+                .exceptionally(AsyncDao::logFailure);
 
     }
 
@@ -86,34 +89,51 @@ public class CompletionTreatmentController {
 
     @FXML
     public void handleConfirm() {
-
-        if((CheckBoxLeave.isSelected() || CheckBoxDead.isSelected())) this.treatment.setStatus(true);
-
-        this.treatment.setComment(
-                CheckBoxLeave.isSelected() ? CheckBoxLeave.getText() :
-                        CheckBoxDead.isSelected() ? CheckBoxDead.getText() : ""
-        );
-
-        this.treatment.setDateOfDelete(convertStringToLocalDate(this.dateOfDelete.getText())); ;
+        boolean status = CheckBoxLeave.isSelected() || CheckBoxDead.isSelected() || this.treatment.getStatusBool();
+        String comment = CheckBoxLeave.isSelected() ? CheckBoxLeave.getText() :
+                CheckBoxDead.isSelected() ? CheckBoxDead.getText() : "";
+        LocalDate dateOfDelete = convertStringToLocalDate(this.dateOfDelete.getText());
 
         areInputDataInvalid();
-        archiveTreatment(this.treatment);
-        controller.readAllAndShowInTableView();
+        Treatment treatment = this.treatment;
+        Treatment archived = new Treatment(treatment.getTid(), treatment.getPid(), treatment.getLocalDate(),
+                treatment.getLocalBegin(), treatment.getLocalEnd(), treatment.getDescription(), treatment.getRemarks(),
+                status, dateOfDelete, comment);
+        Patient patient = this.patient;
+        Patient inCare = new Patient(patient.getPid(), patient.getFirstName(), patient.getSurname(),
+                patient.getLocalDateOfBirth(), patient.getCareLevel(), patient.getRoomNumber(), false);
+        AsyncDao.run(() -> archiveTreatment(archived, inCare))
+                .thenRun(() -> {
+                    treatment.setStatus(status);
+                    treatment.setComment(comment);
+                    treatment.setDateOfDelete(dateOfDelete);
+                    controller.readAllAndShowInTableView();
+                })
+                .exceptionally(AsyncDao::logFailure);
         stage.close();
     }
 
-    private void archiveTreatment(Treatment treatment) {
-        this.treatments.remove(treatment);
+    /**
+     * Moves the treatment into the archive. Inserting the archive entry and deleting the treatment run in one
+     * {@link Transaction}, so the treatment is never in both tables or in neither. The archived treatment refers to
+     * an archived patient, so the patient, who is still in care, is put into the archive first unless already there.
+     * The given treatment is only a copy with the archive data; the caller applies the changes to the shown treatment
+     * once the transaction has been committed.
+     *
+     * @param treatment the copy of the treatment to archive
+     * @param patient   a copy of the treated patient
+     * @throws SQLException if the treatment could not be archived
+     */
+    private void archiveTreatment(Treatment treatment, Patient patient) throws SQLException {
+        ArchivePatientDao archivePatientDao = DaoFactory.getDaoFactory().createArchivePatientDao();
         TreatmentArchiveDao treatmentArchiveDao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
         TreatmentDao tDao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
+        try (Transaction transaction = Transaction.begin()) {
+            archivePatientDao.createInCare(patient);
             treatmentArchiveDao.create(treatment);
-            treatmentArchiveDao.autoDeletionExpiredRecords();
             tDao.deleteById(treatment.getTid());
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+            transaction.commit();
         }
-
     }
 
     @FXML
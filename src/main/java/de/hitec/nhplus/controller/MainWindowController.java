@@ -125,24 +125,13 @@ public class MainWindowController {
 
     /**
      * Handles the logout process:
-     * Clears the user session, switches back to the login screen,
-     * and resizes the stage accordingly.
+     * Closes the user session and switches back to the login screen.
      *
      * @param event the action event triggered by clicking the logout button
      */
     @FXML
     private void handleLogout(ActionEvent event) {
-        try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/LoginView.fxml"));
-            javafx.scene.Parent root = loader.load();
-
-            javafx.stage.Stage stage = (javafx.stage.Stage) mainBorderPane.getScene().getWindow();
-            stage.getScene().setRoot(root);
-            stage.sizeToScene();
-            SessionManager.clearSession();
-
-        } catch (IOException exception) {
-            exception.printStackTrace();
-        }
+        SessionManager.clearSession();
+        Main.showLogin();
     }
 }
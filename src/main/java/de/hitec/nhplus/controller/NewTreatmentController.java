@@ -1,5 +1,6 @@
 package de.hitec.nhplus.controller;
 
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
 import de.hitec.nhplus.datastorage.TreatmentDao;
 import javafx.beans.value.ChangeListener;
@@ -11,9 +12,9 @@ import de.hitec.nhplus.model.Treatment;
 import de.hitec.nhplus.utils.DateConverter;
 import javafx.util.StringConverter;
 
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for creating a new treatment entry for a specific patient.
@@ -96,7 +97,7 @@ public class NewTreatmentController {
 
     /**
      * Handles the event when the "Add" button is pressed.
-     * Collects form data, creates a treatment object, stores it, and refreshes the view.
+     * Collects form data, creates a treatment object, stores it, and appends it to the view.
      */
     @FXML
     public void handleAdd(){
@@ -107,24 +108,21 @@ public class NewTreatmentController {
         String remarks = textAreaRemarks.getText();
         boolean status = false;
         Treatment treatment = new Treatment(patient.getPid(), date, begin, end, description, remarks, status); // "Status" zum Versuch
-        createTreatment(treatment);
-        controller.readAllAndShowInTableView();
+        createTreatment(treatment)
+                .thenAccept(controller::addTreatmentToTableView)
+                .exceptionally(AsyncDao::logFailure);
         stage.close();
     }
 
     /**
-     * Saves a new treatment to the database using the DAO.
+     * Saves a new treatment to the database in the background using the DAO.
      *
      * @param treatment the treatment object to be persisted
+     * @return a future which is completed with the persisted treatment, including its id
      */
-    private void createTreatment(Treatment treatment) {
+    private CompletableFuture<Treatment> createTreatment(Treatment treatment) {
         TreatmentDao dao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
-            dao.create(treatment);
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-
+        return AsyncDao.supply(() -> dao.create(treatment));
     }
 
     /**
@@ -1,5 +1,6 @@
 package de.hitec.nhplus.controller;
 
+import de.hitec.nhplus.datastorage.AsyncDao;
 import de.hitec.nhplus.datastorage.DaoFactory;
 import de.hitec.nhplus.datastorage.PatientDao;
 import de.hitec.nhplus.datastorage.TreatmentDao;
@@ -10,8 +11,8 @@ import de.hitec.nhplus.model.Patient;
 import de.hitec.nhplus.model.Treatment;
 import de.hitec.nhplus.utils.DateConverter;
 
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -57,22 +58,29 @@ public class TreatmentController {
         this.stage = stage;
         this.controller= controller;
         PatientDao pDao = DaoFactory.getDaoFactory().createPatientDAO();
-        try {
-            this.patient = pDao.read((int) treatment.getPid());
-            this.treatment = treatment;
-            showData();
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        this.treatment = treatment;
+        showData();
+        AsyncDao.supply(() -> pDao.read((int) treatment.getPid()))
+                .thenAccept(patient -> {
+                    this.patient = patient;
+                    showPatientData();
+                })
+                .exceptionally(AsyncDao::logFailure);
     }
 
 
     /**
-     * Displays patient information and treatment details in the corresponding UI fields.
+     * Displays the patient information in the corresponding UI fields.
      */
-    private void showData(){
+    private void showPatientData(){
         this.labelPatientName.setText(patient.getSurname()+", "+patient.getFirstName());
         this.labelCareLevel.setText(patient.getCareLevel());
+    }
+
+    /**
+     * Displays the treatment details in the corresponding UI fields.
+     */
+    private void showData(){
         LocalDate date = DateConverter.convertStringToLocalDate(treatment.getDate());
         this.datePicker.setValue(date);
         this.textFieldBegin.setText(this.treatment.getBegin());
@@ -93,22 +101,22 @@ public class TreatmentController {
         this.treatment.setEnd(textFieldEnd.getText());
         this.treatment.setDescription(textFieldDescription.getText());
         this.treatment.setRemarks(textAreaRemarks.getText());
-        doUpdate();
-        controller.readAllAndShowInTableView();
+        doUpdate()
+                .thenRun(controller::readAllAndShowInTableView)
+                .exceptionally(AsyncDao::logFailure);
         stage.close();
     }
 
 
     /**
-     * Updates the treatment in the database.
+     * Updates the treatment in the database in the background.
+     *
+     * @return a future which is completed once the treatment has been updated
      */
-    private void doUpdate(){
+    private CompletableFuture<Void> doUpdate(){
         TreatmentDao dao = DaoFactory.getDaoFactory().createTreatmentDao();
-        try {
-            dao.update(treatment);
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
+        Treatment treatment = this.treatment;
+        return AsyncDao.run(() -> dao.update(treatment));
     }
 
     /**
@@ -0,0 +1,29 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the secondary indexes for the lookups of the DAOs: treatments by patient, users by first name for the login
+ * and archive entries by deletion date for the automatic deletion of expired records.
+ */
+class AddIndexesMigration implements Migration {
+
+    @Override
+    public String getDescription() {
+        return "Indizes für Behandlungen, Archive und Benutzer";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_pid_date ON treatment (pid, treatment_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_archive_pid ON treatment_archive (pid)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_archive_delete_date ON treatment_archive (delete_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_patient_archive_date_of_delete ON patient_archive (dateOfDelete)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_nurse_firstname ON nurse (firstname)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_admin_firstname ON admin (firstname)");
+        }
+    }
+}
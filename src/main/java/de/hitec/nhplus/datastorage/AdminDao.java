@@ -6,10 +6,25 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public class AdminDao extends DaoImp<Admin> {
 
+    private static final RowMapper<Admin> MAPPER = new RowMapper<>(row -> new Admin(
+            row.getLong("id"),
+            row.getString("firstname"),
+            row.getString("surname"),
+            row.getString("password")),
+            "id", "firstname", "surname", "password");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("id", "firstname", "surname");
+
+    private static final List<UpdateColumn<Admin>> UPDATE_COLUMNS = List.of(
+            new UpdateColumn<>("firstName", "firstname", (statement, index, admin) -> statement.setString(index, admin.getFirstName())),
+            new UpdateColumn<>("surname", "surname", (statement, index, admin) -> statement.setString(index, admin.getSurname())),
+            new UpdateColumn<>("password", "password", (statement, index, admin) -> statement.setString(index, admin.getPassword())));
+
     /**
      * The constructor initiates an object of <code>AdminDao</code> and passes the connection to its super class.
      *
@@ -17,6 +32,17 @@ public class AdminDao extends DaoImp<Admin> {
      */
     public AdminDao(Connection connection) { super(connection); }
 
+    /**
+     * The constructor initiates an object of <code>AdminDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public AdminDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
     /**
      * Creates a {@link PreparedStatement} for inserting a new {@link Admin} into the database.
      *
@@ -28,7 +54,7 @@ public class AdminDao extends DaoImp<Admin> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO admin (firstname, surname, password) " + "VALUES (?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setString(1, admin.getFirstName());
             preparedStatement.setString(2, admin.getSurname());
             preparedStatement.setString(3, admin.getPassword());
@@ -48,8 +74,8 @@ public class AdminDao extends DaoImp<Admin> {
     protected PreparedStatement getReadByIDStatement(long nid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM admin WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM admin WHERE id = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, nid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -57,22 +83,6 @@ public class AdminDao extends DaoImp<Admin> {
         return preparedStatement;
     }
 
-    /**
-     * Maps a single row of a {@link ResultSet} to an {@link Admin} object.
-     *
-     * @param result The {@link ResultSet} positioned at a single row.
-     * @return An {@link Admin} object populated with data from the result set.
-     * @throws SQLException if an error occurs while reading from the result set.
-     */
-    @Override
-    protected Admin getInstanceFromResultSet(ResultSet result) throws SQLException {
-        return new Admin(
-                result.getInt(1),
-                result.getString(2),
-                result.getString(3),
-                result.getString(4));
-    }
-
     /**
      * Creates a {@link PreparedStatement} to retrieve all admins from the database.
      *
@@ -82,8 +92,8 @@ public class AdminDao extends DaoImp<Admin> {
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM admin";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM admin";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -91,23 +101,6 @@ public class AdminDao extends DaoImp<Admin> {
     }
 
 
-    /**
-     * Maps a {@link ResultSet} containing multiple rows to a list of {@link Admin} objects.
-     *
-     * @param result The {@link ResultSet} with multiple rows.
-     * @return An {@link ArrayList} of {@link Admin} objects.
-     * @throws SQLException if an error occurs while reading from the result set.
-     */
-    @Override
-    protected ArrayList<Admin> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Admin> list = new ArrayList<>();
-        while (result.next()) {
-            Admin Admin = new Admin(result.getInt(1), result.getString(2), result.getString(3), result.getString(4));
-            list.add(Admin);
-        }
-        return list;
-    }
-
     /**
      * Finds an {@link Admin} by their first name.
      *
@@ -116,16 +109,20 @@ public class AdminDao extends DaoImp<Admin> {
      */
     public Admin findByFirstName(String firstName) {
         Admin admin = null;
+        PreparedStatement stmt = null;
         try {
-            String sql = "SELECT * FROM admin WHERE firstname = ?";
-            PreparedStatement stmt = connection.prepareStatement(sql);
+            String sql = "SELECT " + MAPPER.getColumnList() + " FROM admin WHERE firstname = ?";
+            stmt = prepareStatement(this.readConnection, sql);
             stmt.setString(1, firstName);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                admin = getInstanceFromResultSet(rs);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    admin = MAPPER.map(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            releaseStatement(stmt);
         }
         return admin;
     }
@@ -141,16 +138,7 @@ public class AdminDao extends DaoImp<Admin> {
     protected PreparedStatement getUpdateStatement(Admin admin) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL =
-                    "UPDATE admin SET " +
-                            "firstname = ?, " +
-                            "surname = ?, " +
-                            "password = ? " +
-                            "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setString(1, admin.getFirstName());
-            preparedStatement.setString(2, admin.getSurname());
-            preparedStatement.setString(3, admin.getPassword());
+            preparedStatement = prepareUpdate(admin, null);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -168,7 +156,7 @@ public class AdminDao extends DaoImp<Admin> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "DELETE FROM admin WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, nid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -186,4 +174,76 @@ public class AdminDao extends DaoImp<Admin> {
     protected PreparedStatement getExportStatement(long key) {
         return null;
     }
+
+    /**
+     * Returns the primary key of the given admin.
+     *
+     * @param admin Object of <code>Admin</code>.
+     * @return The id of the admin.
+     */
+    @Override
+    protected long getKey(Admin admin) {
+        return admin.getAid();
+    }
+
+    /**
+     * Sets the key generated for a newly created admin.
+     *
+     * @param admin Object of <code>Admin</code> which was created.
+     * @param key   The generated id.
+     */
+    @Override
+    protected void setKey(Admin admin, long key) {
+        admin.setAid(key);
+    }
+
+    /**
+     * Returns the mapper for the columns of the <code>admin</code> table.
+     *
+     * @return Mapper creating <code>Admin</code> objects.
+     */
+    @Override
+    protected RowMapper<Admin> getRowMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>admin</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "admin";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>id</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "id";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
+    }
+
+    /**
+     * Returns the columns written when an admin is updated, and the fields they are written from.
+     *
+     * @return List of updatable columns.
+     */
+    @Override
+    protected List<UpdateColumn<Admin>> getUpdateColumns() {
+        return UPDATE_COLUMNS;
+    }
 }
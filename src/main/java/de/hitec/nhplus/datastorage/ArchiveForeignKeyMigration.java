@@ -0,0 +1,122 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Links the archived treatments to the archived patients. The foreign key of <code>treatment_archive</code> pointed
+ * to <code>patient</code>, so the archived treatments of a patient were deleted together with the patient, i.e. as
+ * soon as the patient itself was archived. It now points to <code>patient_archive</code>, whose entries keep the id
+ * of the live patient from now on.
+ * <p>
+ * Archived patients used to get a new id, which cannot be traced back to their treatments. They are moved to ids
+ * above all ids in use, so they cannot be mistaken for another patient, and new patients get ids above them.
+ * Archived treatments without an archived patient get an entry for their patient: a copy of the live patient if it
+ * still exists, marked as still in care, otherwise an entry named <code>Unbekannt</code> which expires with the last
+ * of its treatments. Entries of patients still in care may be completed when the patient is archived; all other
+ * archived patients stay unchangeable.
+ * <p>
+ * Both tables are rebuilt. Their indexes and triggers, including those of the full-text index, are recreated
+ * afterwards. An archive whose key already points to <code>patient_archive</code> is left as it is.
+ */
+class ArchiveForeignKeyMigration implements Migration {
+
+    @Override
+    public String getDescription() {
+        return "Archivierte Behandlungen verweisen auf archivierte Patienten";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        if ("patient_archive".equalsIgnoreCase(referencedTable(connection, "treatment_archive"))) {
+            return;
+        }
+        long offset = queryLong(connection, "SELECT MAX(" +
+                "IFNULL((SELECT MAX(pid) FROM patient), 0), " +
+                "IFNULL((SELECT seq FROM sqlite_sequence WHERE name = 'patient'), 0), " +
+                "IFNULL((SELECT MAX(pid) FROM treatment_archive), 0))");
+        IntegerDatesMigration.rebuild(connection, "patient_archive",
+                "(" +
+                        "   pid INTEGER PRIMARY KEY, " +
+                        "   firstname TEXT NOT NULL, " +
+                        "   surname TEXT NOT NULL, " +
+                        "   dateOfBirth INTEGER NOT NULL, " +
+                        "   carelevel TEXT NOT NULL, " +
+                        "   roomnumber TEXT NOT NULL, " +
+                        "   status INTEGER NOT NULL, " +
+                        "   dateOfDelete INTEGER" +
+                        ")",
+                "pid + " + offset + ", firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO patient_archive " +
+                    "(pid, firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete) " +
+                    "SELECT pid, firstname, surname, dateOfBirth, carelevel, roomnumber, 0, NULL FROM patient " +
+                    "WHERE pid IN (SELECT pid FROM treatment_archive)");
+            statement.execute("INSERT INTO patient_archive " +
+                    "(pid, firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete) " +
+                    "SELECT pid, 'Unbekannt', 'Unbekannt', 0, '', '', 1, MAX(delete_date) FROM treatment_archive " +
+                    "WHERE pid NOT IN (SELECT pid FROM patient_archive) GROUP BY pid");
+            // Ids of archived patients must not be handed out to new patients.
+            statement.execute("UPDATE sqlite_sequence SET seq = MAX(seq, IFNULL((SELECT MAX(pid) FROM patient_archive), 0)) " +
+                    "WHERE name = 'patient'");
+        }
+        IntegerDatesMigration.rebuild(connection, "treatment_archive",
+                "(" +
+                        "   tid INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "   pid INTEGER NOT NULL, " +
+                        "   treatment_date INTEGER NOT NULL, " +
+                        "   begin INTEGER NOT NULL, " +
+                        "   end INTEGER NOT NULL, " +
+                        "   description TEXT NOT NULL, " +
+                        "   remark TEXT NOT NULL, " +
+                        "   status INTEGER NOT NULL, " +
+                        "   delete_date INTEGER, " +
+                        "   comment TEXT NOT NULL, " +
+                        "   FOREIGN KEY (pid) REFERENCES patient_archive (pid) ON DELETE CASCADE" +
+                        ")",
+                "tid, pid, treatment_date, begin, end, description, remark, status, delete_date, comment");
+
+        new AddIndexesMigration().apply(connection);
+        new SortIndexesMigration().apply(connection);
+        new FullTextSearchMigration().apply(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER IF NOT EXISTS prevent_treatment_archive_changes " +
+                    "BEFORE UPDATE ON treatment_archive " +
+                    "FOR EACH ROW " +
+                    "BEGIN " +
+                    "    SELECT RAISE(ABORT, 'Archivierte Daten sind unveränderlich'); " +
+                    "END");
+            // Entries of patients still in care are completed when the patient is archived.
+            statement.execute("CREATE TRIGGER IF NOT EXISTS prevent_patient_archive_changes " +
+                    "BEFORE UPDATE ON patient_archive " +
+                    "FOR EACH ROW WHEN OLD.status <> 0 " +
+                    "BEGIN " +
+                    "    SELECT RAISE(ABORT, 'Archivierte Daten sind unveränderlich'); " +
+                    "END");
+        }
+    }
+
+    /**
+     * Returns the table the foreign key of the given table points to.
+     *
+     * @param connection The writer connection.
+     * @param table      The table to check.
+     * @return The referenced table, or {@code null} if the table has no foreign key.
+     * @throws SQLException If a database access error occurs.
+     */
+    private static String referencedTable(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA foreign_key_list(" + table + ")")) {
+            return result.next() ? result.getString("table") : null;
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getLong(1) : 0;
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Patient;
-import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Implements the Interface <code>DaoImp</code>. Overrides methods to generate specific <code>PreparedStatements</code>,
@@ -13,6 +12,19 @@ import java.util.ArrayList;
  */
 public class ArchivePatientDao extends DaoImp<Patient> {
 
+    private static final RowMapper<Patient> MAPPER = new RowMapper<>(row -> new Patient(
+            row.getLong("pid"),
+            row.getString("firstname"),
+            row.getString("surname"),
+            row.getDate("dateOfBirth"),
+            row.getString("carelevel"),
+            row.getString("roomnumber"),
+            row.getBoolean("status"),
+            row.getDate("dateOfDelete")),
+            "pid", "firstname", "surname", "dateOfBirth", "carelevel", "roomnumber", "status", "dateOfDelete");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("pid", "firstname", "surname", "dateOfBirth", "carelevel", "roomnumber", "status");
+
     /**
      * The constructor initiates an object of <code>PatientDao</code> and passes the connection to its super class.
      *
@@ -23,7 +35,21 @@ public class ArchivePatientDao extends DaoImp<Patient> {
     }
 
     /**
-     * Generates a <code>PreparedStatement</code> to persist the given object of <code>Patient</code>.
+     * The constructor initiates an object of <code>ArchivePatientDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public ArchivePatientDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
+    /**
+     * Generates a <code>PreparedStatement</code> to persist the given object of <code>Patient</code>. The archive
+     * keeps the id of the live patient, so the archived treatments of the patient refer to the entry. An entry
+     * created when a treatment of the patient was archived while the patient was still in care is completed with
+     * the given data.
      *
      * @param patient Object of <code>Patient</code> to persist.
      * @return <code>PreparedStatement</code> to insert the given patient.
@@ -32,26 +58,54 @@ public class ArchivePatientDao extends DaoImp<Patient> {
     protected PreparedStatement getCreateStatement(Patient patient) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "INSERT INTO patient_archive (firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setString(1, patient.getFirstName());
-            preparedStatement.setString(2, patient.getSurname());
-            preparedStatement.setString(3, patient.getDateOfBirth());
-            preparedStatement.setString(4, patient.getCareLevel());
-            preparedStatement.setString(5, patient.getRoomNumber());
-            preparedStatement.setBoolean(6, patient.getStatusBool());
-            if (patient.getDateOfDelete() == null) {
-                preparedStatement.setString(7, null);
-            } else {
-                preparedStatement.setString(7, patient.getDateOfDelete().toString());
-            }
+            final String SQL = "INSERT INTO patient_archive (pid, firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (pid) DO UPDATE SET " +
+                    "firstname = excluded.firstname, " +
+                    "surname = excluded.surname, " +
+                    "dateOfBirth = excluded.dateOfBirth, " +
+                    "carelevel = excluded.carelevel, " +
+                    "roomnumber = excluded.roomnumber, " +
+                    "status = excluded.status, " +
+                    "dateOfDelete = excluded.dateOfDelete";
+            preparedStatement = prepareStatement(this.connection, SQL);
+            preparedStatement.setLong(1, patient.getPid());
+            preparedStatement.setString(2, patient.getFirstName());
+            preparedStatement.setString(3, patient.getSurname());
+            setDate(preparedStatement, 4, patient.getLocalDateOfBirth());
+            preparedStatement.setString(5, patient.getCareLevel());
+            preparedStatement.setString(6, patient.getRoomNumber());
+            preparedStatement.setBoolean(7, patient.getStatusBool());
+            setDate(preparedStatement, 8, patient.getDateOfDelete());
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return preparedStatement;
     }
 
+    /**
+     * Puts a patient who is still in care into the archive, unless the patient is already there. Called before a
+     * single treatment of the patient is archived, so the archived treatment refers to an archived patient. The
+     * entry has no date of deletion; it is completed when the patient is archived, see
+     * {@link #getCreateStatement(Patient)}, and deleted by the {@link RetentionService} once no archived treatment
+     * refers to it anymore.
+     *
+     * @param patient The live patient.
+     * @throws SQLException If a database access error occurs.
+     */
+    public void createInCare(Patient patient) throws SQLException {
+        final String SQL = "INSERT OR IGNORE INTO patient_archive (pid, firstname, surname, dateOfBirth, carelevel, roomnumber, status, dateOfDelete) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 0, NULL)";
+        PreparedStatement statement = prepareStatement(this.connection, SQL);
+        statement.setLong(1, patient.getPid());
+        statement.setString(2, patient.getFirstName());
+        statement.setString(3, patient.getSurname());
+        setDate(statement, 4, patient.getLocalDateOfBirth());
+        statement.setString(5, patient.getCareLevel());
+        statement.setString(6, patient.getRoomNumber());
+        execute(statement);
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to query a patient by a given patient id (pid).
      *
@@ -62,8 +116,8 @@ public class ArchivePatientDao extends DaoImp<Patient> {
     protected PreparedStatement getReadByIDStatement(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM patient_archive WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient_archive WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -71,27 +125,6 @@ public class ArchivePatientDao extends DaoImp<Patient> {
         return preparedStatement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of one patient to an object of <code>Patient</code>.
-     *
-     * @param result ResultSet with a single row. Columns will be mapped to an object of class <code>Patient</code>.
-     * @return Object of class <code>Patient</code> with the data from the resultSet.
-     */
-    @Override
-    protected Patient getInstanceFromResultSet(ResultSet result) throws SQLException {
-        return new Patient(
-                result.getInt(1),
-                result.getString(2),
-                result.getString(3),
-                DateConverter.convertStringToLocalDate(result.getString(4)),
-                result.getString(5),
-                result.getString(6),
-                result.getBoolean(7),
-                DateConverter.convertStringToLocalDate(result.getString(8)));
-
-
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to query all patients.
      *
@@ -101,35 +134,14 @@ public class ArchivePatientDao extends DaoImp<Patient> {
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM patient_archive";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient_archive";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return statement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of all patients to an <code>ArrayList</code> of <code>Patient</code> objects.
-     *
-     * @param result ResultSet with all rows. The Columns will be mapped to objects of class <code>Patient</code>.
-     * @return <code>ArrayList</code> with objects of class <code>Patient</code> of all rows in the
-     * <code>ResultSet</code>.
-     */
-    @Override
-    protected ArrayList<Patient> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Patient> list = new ArrayList<>();
-        while (result.next()) {
-            LocalDate date = DateConverter.convertStringToLocalDate(result.getString(4));
-            LocalDate date_delete = DateConverter.convertStringToLocalDate(result.getString(8));
-            Patient patient = new Patient(result.getInt(1), result.getString(2),
-                    result.getString(3), date,
-                    result.getString(5), result.getString(6), result.getBoolean(7), date_delete);
-            list.add(patient);
-        }
-        return list;
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to update the given patient, identified
      * by the id of the patient (pid).
@@ -151,14 +163,14 @@ public class ArchivePatientDao extends DaoImp<Patient> {
                             "status = ?, " +
                             "dateOfDelete = ? " +
                             "WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setString(1, patient.getFirstName());
             preparedStatement.setString(2, patient.getSurname());
-            preparedStatement.setString(3, patient.getDateOfBirth());
+            setDate(preparedStatement, 3, patient.getLocalDateOfBirth());
             preparedStatement.setString(4, patient.getCareLevel());
             preparedStatement.setString(5, patient.getRoomNumber());
             preparedStatement.setBoolean(6, patient.getStatusBool());
-            preparedStatement.setString(7,patient.getDateOfDelete().toString());
+            setDate(preparedStatement, 7, patient.getDateOfDelete());
             preparedStatement.setLong(8, patient.getPid());
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -177,7 +189,7 @@ public class ArchivePatientDao extends DaoImp<Patient> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "DELETE FROM patient_archive WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -189,8 +201,8 @@ public class ArchivePatientDao extends DaoImp<Patient> {
     protected PreparedStatement getExportStatement(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM patient_archive WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient_archive WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -198,12 +210,87 @@ public class ArchivePatientDao extends DaoImp<Patient> {
         return preparedStatement;
     }
 
-    public void autoDeletionExpiredRecords() throws SQLException {
-        String sqlDelete = "DELETE FROM patient_archive WHERE dateOfDelete  <=  DATE ('now')";
-        try {
-            this.connection.prepareStatement(sqlDelete).execute();
-        } catch(SQLException exception){
-            exception.printStackTrace();
-        }
+    /**
+     * Deletes archived patients whose retention period has expired, at most the given number of rows at once.
+     * Called by the {@link RetentionService} until no expired rows are left. A patient is only deleted once none of
+     * its archived treatments is left, which would otherwise be deleted with it; entries of patients still in care
+     * are deleted as soon as no archived treatment refers to them.
+     *
+     * @param today The current date; rows to be deleted up to this day are expired.
+     * @param limit The maximum number of rows to delete.
+     * @return The number of deleted rows.
+     * @throws SQLException If a database access error occurs.
+     */
+    public int deleteExpired(LocalDate today, int limit) throws SQLException {
+        final String SQL = "DELETE FROM patient_archive WHERE rowid IN " +
+                "(SELECT rowid FROM patient_archive WHERE (dateOfDelete <= ? OR status = 0) " +
+                "AND NOT EXISTS (SELECT 1 FROM treatment_archive WHERE treatment_archive.pid = patient_archive.pid) " +
+                "LIMIT ?)";
+        PreparedStatement statement = prepareStatement(this.connection, SQL);
+        setDate(statement, 1, today);
+        statement.setInt(2, limit);
+        return execute(statement);
+    }
+
+    /**
+     * Returns the primary key of the given patient.
+     *
+     * @param patient Object of <code>Patient</code>.
+     * @return The id of the patient.
+     */
+    @Override
+    protected long getKey(Patient patient) {
+        return patient.getPid();
+    }
+
+    /**
+     * Does not change the given patient. The archive entry has the id of the patient it was created from, which is
+     * set already; the key reported for an entry which has been completed is not the id of the entry.
+     *
+     * @param patient Object of <code>Patient</code> which was archived.
+     * @param pid     The key of the archive entry.
+     */
+    @Override
+    protected void setKey(Patient patient, long pid) {
+    }
+
+    /**
+     * Returns the mapper for the columns of the <code>patient_archive</code> table.
+     *
+     * @return Mapper creating <code>Patient</code> objects.
+     */
+    @Override
+    protected RowMapper<Patient> getRowMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>patient_archive</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "patient_archive";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>pid</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "pid";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
     }
 }
@@ -0,0 +1,91 @@
+package de.hitec.nhplus.datastorage;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous facade for calls to the DAOs. Each call runs on its own virtual thread, so slow queries do not block
+ * the JavaFX application thread.
+ * <p>
+ * The returned {@link CompletableFuture}s are completed on the JavaFX application thread. Stages attached with
+ * {@code thenAccept()}, {@code thenRun()} or {@code exceptionally()} can therefore update the UI directly:
+ * <pre>
+ * AsyncDao.supply(dao::readAll)
+ *         .thenAccept(this.patients::setAll)
+ *         .exceptionally(AsyncDao::logFailure);
+ * </pre>
+ */
+public final class AsyncDao {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private AsyncDao() {
+    }
+
+    /**
+     * Call to a DAO which returns a result.
+     *
+     * @param <R> the type of the result.
+     */
+    @FunctionalInterface
+    public interface DaoCall<R> {
+        R call() throws SQLException;
+    }
+
+    /**
+     * Call to a DAO without a result.
+     */
+    @FunctionalInterface
+    public interface DaoAction {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Runs the given call on a virtual thread.
+     *
+     * @param call the DAO call to run.
+     * @param <R>  the type of the result.
+     * @return a future which is completed with the result on the JavaFX application thread.
+     */
+    public static <R> CompletableFuture<R> supply(DaoCall<R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try {
+                R result = call.call();
+                Platform.runLater(() -> future.complete(result));
+            } catch (Throwable throwable) {
+                Platform.runLater(() -> future.completeExceptionally(throwable));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs the given action on a virtual thread.
+     *
+     * @param action the DAO action to run.
+     * @return a future which is completed on the JavaFX application thread once the action has finished.
+     */
+    public static CompletableFuture<Void> run(DaoAction action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Prints the error of a failed call. Meant to be used as {@code exceptionally(AsyncDao::logFailure)}.
+     *
+     * @param throwable the error of the failed call.
+     * @param <R>       the type of the result of the call.
+     * @return always {@code null}.
+     */
+    public static <R> R logFailure(Throwable throwable) {
+        throwable.printStackTrace();
+        return null;
+    }
+}
@@ -3,14 +3,28 @@ package de.hitec.nhplus.datastorage;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import org.sqlite.SQLiteConfig;
 
 /**
- * Utility class to manage the creation and closure of a singleton SQLite database connection,
+ * Utility class to manage the creation and closure of the SQLite database connections,
  * including encryption support using SQLCipher.
+ * <p>
+ * By default a single shared connection is used for reading and writing. If {@code DB_READ_CONNECTIONS}
+ * is set to a value greater than zero in the <code>.env</code> file, the builder runs in pooled mode: one dedicated
+ * writer connection plus the configured number of read-only connections, all working on the database in WAL
+ * journal mode, so that reads no longer queue behind writes.
+ * <p>
+ * Every connection is configured with the {@link DatabaseProfile} selected in the <code>.env</code> file.
+ * <p>
+ * The database is keyed with the passphrase {@code SQLCIPHER_KEY}, from which SQLCipher derives the key on every
+ * connection it opens. If {@code SQLCIPHER_RAW_KEY} holds a pre-derived key of 64 hex digits, it is used directly and
+ * the costly key derivation is skipped; {@code EncryptDB raw-key} converts an existing database. For databases of
+ * older SQLCipher versions, {@code SQLCIPHER_KDF_ITER} sets the number of iterations of the key derivation.
  */
 public class ConnectionBuilder {
 
@@ -21,25 +35,32 @@ public class ConnectionBuilder {
             .directory("src/main/resources")
             .load();
     public static final String DB_PASSWORD = dotenv.get("SQLCIPHER_KEY");
+    private static final String DB_RAW_KEY = dotenv.get("SQLCIPHER_RAW_KEY", "").isBlank()
+            ? null : toRawKey(dotenv.get("SQLCIPHER_RAW_KEY"));
+    private static final String KDF_ITER = dotenv.get("SQLCIPHER_KDF_ITER", "").isBlank()
+            ? null : Integer.toString(Integer.parseInt(dotenv.get("SQLCIPHER_KDF_ITER").trim()));
+    private static final int READ_CONNECTIONS = Integer.parseInt(dotenv.get("DB_READ_CONNECTIONS", "0"));
+    private static final DatabaseProfile PROFILE = DatabaseProfile.load(dotenv, READ_CONNECTIONS > 0);
+
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
 
     private static Connection connection;
+    private static final List<Connection> readConnections = new ArrayList<>();
+    private static int nextReadConnection;
 
 
     /**
      * Returns the singleton {@link Connection} to the SQLite database. Initializes the connection
      * if it does not already exist. Also configures foreign key constraints and sets the encryption key.
+     * <p>
+     * In pooled mode this is the only connection which is allowed to write to the database.
      *
      * @return The SQLite {@link Connection}, or {@code null} if an error occurs.
      */
     synchronized public static Connection getConnection() {
         try {
             if (ConnectionBuilder.connection == null) {
-                SQLiteConfig configuration = new SQLiteConfig();
-                configuration.enforceForeignKeys(true);
-                
-                configuration.setPragma(SQLiteConfig.Pragma.KEY, DB_PASSWORD);
-
-                ConnectionBuilder.connection = DriverManager.getConnection(URL, configuration.toProperties());
+                ConnectionBuilder.connection = openConnection(false);
             }
         } catch (SQLException exception) {
             System.out.println("Verbindung zur Datenbank konnte nicht aufgebaut werden!");
@@ -49,11 +70,155 @@ public class ConnectionBuilder {
     }
 
     /**
-     * Closes the current SQLite {@link Connection} if it exists and resets it to {@code null}.
+     * Returns a {@link Connection} to be used for read-only operations. In pooled mode the read-only connections
+     * are handed out in turns, otherwise the shared connection of {@link #getConnection()} is returned.
+     *
+     * @return A SQLite {@link Connection} for reading, or {@code null} if an error occurs.
+     */
+    synchronized public static Connection getReadConnection() {
+        if (!isPooled()) {
+            return getConnection();
+        }
+        try {
+            if (ConnectionBuilder.readConnections.isEmpty()) {
+                // The writer switches the database file to WAL mode, so it has to be opened first.
+                getConnection();
+                for (int i = 0; i < READ_CONNECTIONS; i++) {
+                    ConnectionBuilder.readConnections.add(openConnection(true));
+                }
+            }
+        } catch (SQLException exception) {
+            System.out.println("Lesende Verbindung zur Datenbank konnte nicht aufgebaut werden!");
+            exception.printStackTrace();
+            return getConnection();
+        }
+        Connection readConnection = ConnectionBuilder.readConnections.get(ConnectionBuilder.nextReadConnection);
+        ConnectionBuilder.nextReadConnection = (ConnectionBuilder.nextReadConnection + 1) % ConnectionBuilder.readConnections.size();
+        return readConnection;
+    }
+
+    /**
+     * Returns the lock which serializes write access to the writer connection. A thread running a transaction
+     * holds the lock until it commits or rolls back, so no write of another thread ends up in its transaction.
+     *
+     * @return The lock guarding the writer connection.
+     */
+    public static ReentrantLock getWriteLock() {
+        return WRITE_LOCK;
+    }
+
+    /**
+     * Indicates whether the builder keeps a dedicated writer and separate read-only connections.
+     *
+     * @return {@code true} if at least one read-only connection is configured.
+     */
+    public static boolean isPooled() {
+        return READ_CONNECTIONS > 0;
+    }
+
+    /**
+     * Indicates whether the database is keyed with the pre-derived key of {@code SQLCIPHER_RAW_KEY}.
+     *
+     * @return {@code true} in raw key mode, {@code false} if the key is derived from the passphrase.
+     */
+    public static boolean usesRawKey() {
+        return DB_RAW_KEY != null;
+    }
+
+    /**
+     * Returns the key the database is encrypted with, as value for <code>PRAGMA key</code> or
+     * <code>PRAGMA rekey</code>.
+     *
+     * @return The raw key in the form <code>x'...'</code> in raw key mode, otherwise the passphrase.
+     */
+    public static String getKey() {
+        return usesRawKey() ? DB_RAW_KEY : DB_PASSWORD;
+    }
+
+    /**
+     * Converts a pre-derived key into the form SQLCipher expects for raw keys.
+     *
+     * @param hex The key as 64 hex digits, or 96 hex digits including the salt.
+     * @return The key in the form <code>x'...'</code>.
+     * @throws IllegalArgumentException If the key does not consist of 64 or 96 hex digits.
+     */
+    public static String toRawKey(String hex) {
+        String digits = hex.trim();
+        if (!digits.matches("[0-9a-fA-F]{64}|[0-9a-fA-F]{96}")) {
+            throw new IllegalArgumentException("SQLCIPHER_RAW_KEY muss aus 64 oder 96 Hexadezimalziffern bestehen.");
+        }
+        return "x'" + digits + "'";
+    }
+
+    /**
+     * Opens a separate writer connection keyed with the passphrase, regardless of the raw key mode. Used to convert
+     * a database which is still keyed with the passphrase. The caller has to close the connection.
+     *
+     * @return The newly opened {@link Connection}.
+     * @throws SQLException If the connection could not be opened.
+     */
+    public static Connection openPassphraseConnection() throws SQLException {
+        return open(DB_PASSWORD, false);
+    }
+
+    /**
+     * Opens a new encrypted connection to the database and applies the {@link DatabaseProfile}. The effective
+     * settings of the writer connection are printed.
+     *
+     * @param readOnly {@code true} to open the connection in read-only mode.
+     * @return The newly opened {@link Connection}.
+     * @throws SQLException If the connection could not be opened.
+     */
+    private static Connection openConnection(boolean readOnly) throws SQLException {
+        Connection newConnection = open(getKey(), readOnly);
+        try {
+            PROFILE.apply(newConnection, !readOnly);
+            if (!readOnly) {
+                PROFILE.log(newConnection);
+            }
+        } catch (SQLException exception) {
+            newConnection.close();
+            throw exception;
+        }
+        return newConnection;
+    }
+
+    /**
+     * Opens a new connection to the database with the given key.
+     *
+     * @param key      The passphrase or the raw key in the form <code>x'...'</code>.
+     * @param readOnly {@code true} to open the connection in read-only mode.
+     * @return The newly opened {@link Connection}.
+     * @throws SQLException If the connection could not be opened.
+     */
+    private static Connection open(String key, boolean readOnly) throws SQLException {
+        SQLiteConfig configuration = new SQLiteConfig();
+        configuration.enforceForeignKeys(true);
+
+        // A raw key is used as it is, so the number of iterations only matters for the passphrase.
+        if (KDF_ITER != null && !key.equals(DB_RAW_KEY)) {
+            configuration.setPragma(SQLiteConfig.Pragma.KDF_ITER, KDF_ITER);
+        }
+        configuration.setPragma(SQLiteConfig.Pragma.KEY, key);
+        configuration.setReadOnly(readOnly);
+
+        return DriverManager.getConnection(URL, configuration.toProperties());
+    }
+
+    /**
+     * Closes the current SQLite {@link Connection} and all read-only connections if they exist and resets them.
+     * Cached statements of these connections are closed beforehand.
      */
     synchronized public static void closeConnection() {
         try {
+            for (Connection readConnection : ConnectionBuilder.readConnections) {
+                DaoImp.closeStatements(readConnection);
+                readConnection.close();
+            }
+            ConnectionBuilder.readConnections.clear();
+            ConnectionBuilder.nextReadConnection = 0;
             if (ConnectionBuilder.connection != null) {
+                DaoImp.closeStatements(ConnectionBuilder.connection);
                 ConnectionBuilder.connection.close();
                 ConnectionBuilder.connection = null;
             }
@@ -0,0 +1,181 @@
+package de.hitec.nhplus.datastorage;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import de.hitec.nhplus.model.Admin;
+import de.hitec.nhplus.model.Nurse;
+import de.hitec.nhplus.model.Person;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks the credentials of admins and nurses and hashes new passwords.
+ * <p>
+ * An account is looked up with a single query over the tables <code>admin</code> and <code>nurse</code>, which uses
+ * the indexes on their first names. Admins take precedence over nurses with the same first name, as before.
+ * <p>
+ * BCrypt hashing takes about a quarter of a second at the default cost, so it runs on a pool of at most
+ * {@code BCRYPT_THREADS} threads; concurrent logins and user creations queue up instead of occupying every core. The
+ * methods block until the result is available and must therefore be called in the background, e.g. with
+ * {@link AsyncDao}. The cost factor of new hashes is read from {@code BCRYPT_COST} in the <code>.env</code> file.
+ * If a user logs in whose password was hashed with another cost, the password is hashed again with the configured
+ * cost and stored, so raising the cost takes effect with the next login of every user.
+ */
+public final class CredentialService {
+
+    private static final int DEFAULT_COST = 12;
+
+    private static final Dotenv dotenv = Dotenv.configure()
+            .directory("src/main/resources")
+            .load();
+    private static final int COST = readCost(dotenv.get("BCRYPT_COST", ""));
+    private static final int THREADS = dotenv.get("BCRYPT_THREADS", "").isBlank()
+            ? Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2))
+            : Integer.parseInt(dotenv.get("BCRYPT_THREADS").trim());
+
+    private static final ExecutorService HASHERS = Executors.newFixedThreadPool(THREADS,
+            Thread.ofPlatform().name("bcrypt-", 0).daemon().factory());
+
+    private static final RowMapper<Person> ACCOUNT_MAPPER = new RowMapper<>(row -> row.getBoolean("is_admin")
+            ? new Admin(row.getLong("id"), row.getString("firstname"), row.getString("surname"),
+                    row.getString("password"))
+            : new Nurse(row.getLong("id"), row.getString("firstname"), row.getString("surname"),
+                    row.getString("phoneNumber"), row.getString("password")),
+            "is_admin", "id", "firstname", "surname", "phoneNumber", "password");
+
+    private static final String ACCOUNT_SQL =
+            "SELECT * FROM (SELECT 1 AS is_admin, id, firstname, surname, NULL AS phoneNumber, password " +
+                    "FROM admin WHERE firstname = ? LIMIT 1) " +
+                    "UNION ALL " +
+                    "SELECT * FROM (SELECT 0, id, firstname, surname, phoneNumber, password " +
+                    "FROM nurse WHERE firstname = ? LIMIT 1) " +
+                    "ORDER BY is_admin DESC";
+
+    private CredentialService() {
+    }
+
+    /**
+     * Authenticates a user by first name and password. If the password was hashed with another cost than the
+     * configured one, it is hashed again and stored.
+     *
+     * @param firstName the first name, which serves as user name.
+     * @param password  the entered password.
+     * @return the admin or nurse with the given first name and password, or {@code null} if there is none.
+     * @throws SQLException if a database access error occurs.
+     */
+    public static Person authenticate(String firstName, String password) throws SQLException {
+        for (Person account : findAccounts(firstName)) {
+            String hash = passwordOf(account);
+            BCrypt.Result result = compute(() -> BCrypt.verifyer().verify(password.toCharArray(), hash));
+            if (result.verified) {
+                if (result.details.cost != COST) {
+                    rehash(account, password);
+                }
+                return account;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hashes a new password with the configured cost.
+     *
+     * @param password the plain password.
+     * @return the BCrypt hash to store.
+     */
+    public static String hashPassword(String password) {
+        return compute(() -> BCrypt.withDefaults().hashToString(COST, password.toCharArray()));
+    }
+
+    /**
+     * Queries the admin and the nurse with the given first name, the admin first.
+     *
+     * @param firstName the first name to look for.
+     * @return at most one admin and one nurse.
+     * @throws SQLException if a database access error occurs.
+     */
+    private static List<Person> findAccounts(String firstName) throws SQLException {
+        List<Person> accounts = new ArrayList<>(2);
+        try (PreparedStatement statement = ConnectionBuilder.getReadConnection().prepareStatement(ACCOUNT_SQL)) {
+            statement.setString(1, firstName);
+            statement.setString(2, firstName);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    accounts.add(ACCOUNT_MAPPER.map(result));
+                }
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Hashes the password of the given account with the configured cost and stores it. A failure is only printed,
+     * since the login itself has succeeded; the password is then hashed again on the next login.
+     *
+     * @param account  the authenticated admin or nurse.
+     * @param password the verified plain password.
+     */
+    private static void rehash(Person account, String password) {
+        String hash = hashPassword(password);
+        try {
+            if (account instanceof Admin admin) {
+                admin.setPassword(hash);
+                DaoFactory.getDaoFactory().createAdminDao().update(admin);
+            } else if (account instanceof Nurse nurse) {
+                nurse.setPassword(hash);
+                DaoFactory.getDaoFactory().createNurseDao().update(nurse);
+            }
+        } catch (SQLException exception) {
+            System.out.println("Passwort von " + account.getFirstName() + " konnte nicht neu gehasht werden!");
+            exception.printStackTrace();
+        }
+    }
+
+    private static String passwordOf(Person account) {
+        return account instanceof Admin admin ? admin.getPassword() : ((Nurse) account).getPassword();
+    }
+
+    /**
+     * Runs a hashing task on the BCrypt pool and waits for its result.
+     *
+     * @param task the task to run.
+     * @param <R>  the type of the result.
+     * @return the result of the task.
+     */
+    private static <R> R compute(Callable<R> task) {
+        try {
+            return HASHERS.submit(task).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Das Hashen des Passworts wurde unterbrochen.", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Das Passwort konnte nicht gehasht werden.", exception.getCause());
+        }
+    }
+
+    /**
+     * Parses the configured cost factor.
+     *
+     * @param value the value of {@code BCRYPT_COST}; blank for the default cost.
+     * @return the cost factor.
+     * @throws IllegalArgumentException if the value is not a number between 4 and 31.
+     */
+    private static int readCost(String value) {
+        if (value.isBlank()) {
+            return DEFAULT_COST;
+        }
+        int cost = Integer.parseInt(value.trim());
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("BCRYPT_COST muss zwischen 4 und 31 liegen.");
+        }
+        return cost;
+    }
+}
@@ -2,6 +2,7 @@ package de.hitec.nhplus.datastorage;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Generic Data Access Object (DAO) interface that defines basic CRUD operations
@@ -15,9 +16,19 @@ public interface Dao<T> {
      * Persists a new entity into the database.
      *
      * @param t The entity object to be created and stored.
+     * @return The given entity, with the primary key generated by the database set.
      * @throws SQLException If a database access error occurs.
      */
-    void create(T t) throws SQLException;
+    T create(T t) throws SQLException;
+
+    /**
+     * Persists all given entities within a single transaction.
+     *
+     * @param entities The entity objects to be created and stored.
+     * @return The generated primary keys, in the order of the given entities. The keys are also set on the entities.
+     * @throws SQLException If a database access error occurs. No entity is stored in this case.
+     */
+    List<Long> createAll(List<T> entities) throws SQLException;
 
     /**
      * Retrieves a single entity from the database using its unique identifier.
@@ -36,6 +47,68 @@ public interface Dao<T> {
      */
     List<T> readAll() throws SQLException;
 
+    /**
+     * Retrieves the next page of entities ordered by their primary key. Only entities with a primary key greater
+     * than {@code afterKey} are returned, so the cost of a page does not depend on how far the caller has paged.
+     *
+     * @param afterKey The primary key of the last entity of the previous page, or {@code 0} for the first page.
+     * @param limit    The maximum number of entities to return.
+     * @return A {@link List} with at most {@code limit} entities in ascending key order.
+     * @throws SQLException If a database access error occurs.
+     */
+    List<T> readPage(long afterKey, int limit) throws SQLException;
+
+    /**
+     * Retrieves the next page of entities ordered by the given column and, for equal values, by the primary key.
+     * The page starts right after the entity identified by {@code afterSortValue} and {@code afterKey}.
+     *
+     * @param sortColumn     The column to sort by. Must be one of the sortable columns of the DAO.
+     * @param afterSortValue The value of the sort column of the last entity of the previous page, or {@code null}
+     *                       for the first page. Dates and times are given as {@link java.time.LocalDate} and
+     *                       {@link java.time.LocalTime}.
+     * @param afterKey       The primary key of the last entity of the previous page. Ignored for the first page.
+     * @param limit          The maximum number of entities to return.
+     * @return A {@link List} with at most {@code limit} entities in ascending order of the sort column.
+     * @throws SQLException If a database access error occurs.
+     * @throws IllegalArgumentException If the given column cannot be used for sorting.
+     */
+    List<T> readPage(String sortColumn, Object afterSortValue, long afterKey, int limit) throws SQLException;
+
+    /**
+     * Counts the stored entities of this type.
+     *
+     * @return The number of entities.
+     * @throws SQLException If a database access error occurs.
+     */
+    long count() throws SQLException;
+
+    /**
+     * Retrieves the entities at the given position of the given sort order, e.g. the rows a table currently shows.
+     * Unlike {@link #readPage(String, Object, long, int)} the page can be read without knowing the previous page.
+     *
+     * @param sortColumn The column to sort by. Must be one of the sortable columns of the DAO.
+     * @param descending {@code true} to sort in descending order of the column.
+     * @param offset     The number of entities to skip.
+     * @param limit      The maximum number of entities to return.
+     * @return A {@link List} with at most {@code limit} entities, ordered by the sort column and, for equal values,
+     * by the primary key in the same direction.
+     * @throws SQLException If a database access error occurs.
+     * @throws IllegalArgumentException If the given column cannot be used for sorting.
+     */
+    List<T> readPage(String sortColumn, boolean descending, long offset, int limit) throws SQLException;
+
+    /**
+     * Retrieves all entities of this type as a lazily populated {@link Stream}. Rows are read from the database
+     * cursor one by one while the stream is consumed, so memory usage does not depend on the size of the table.
+     * <p>
+     * The stream holds an open cursor and must be closed, preferably with try-with-resources.
+     *
+     * @param fetchSize The number of rows the driver should fetch from the database at once.
+     * @return A {@link Stream} over all stored entities of type {@code T}.
+     * @throws SQLException If a database access error occurs.
+     */
+    Stream<T> streamAll(int fetchSize) throws SQLException;
+
     /**
      * Updates an existing entity in the database.
      *
@@ -44,6 +117,14 @@ public interface Dao<T> {
      */
     void update(T t) throws SQLException;
 
+    /**
+     * Updates all given entities as one JDBC batch within a single transaction.
+     *
+     * @param entities The entity objects with updated data to be persisted.
+     * @throws SQLException If a database access error occurs. No entity is updated in this case.
+     */
+    void updateAll(List<T> entities) throws SQLException;
+
     /**
      * Deletes an entity from the database using its unique identifier.
      *
@@ -52,6 +133,14 @@ public interface Dao<T> {
      */
     void deleteById(long key) throws SQLException;
 
+    /**
+     * Deletes all entities with the given identifiers as one JDBC batch within a single transaction.
+     *
+     * @param keys The unique identifiers of the entities to be deleted.
+     * @throws SQLException If a database access error occurs. No entity is deleted in this case.
+     */
+    void deleteAllById(List<Long> keys) throws SQLException;
+
     /**
      * Exports an entity from the database using its unique identifier.
      * The specific export format and behavior are implementation-dependent.
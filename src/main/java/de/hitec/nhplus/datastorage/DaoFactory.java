@@ -1,17 +1,41 @@
 package de.hitec.nhplus.datastorage;
 
+import de.hitec.nhplus.model.Nurse;
+import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.Treatment;
+
 public class DaoFactory {
 
+    private static final int MAX_CACHED_PATIENTS = 2_000;
+    private static final int MAX_CACHED_TREATMENTS = 20_000;
+    private static final int MAX_CACHED_NURSES = 500;
+
     private static DaoFactory instance;
 
+    private final EntityCache<Patient> patientCache = new EntityCache<>("Patienten", MAX_CACHED_PATIENTS, Patient::getPid);
+    private final EntityCache<Treatment> treatmentCache = new EntityCache<>("Behandlungen", MAX_CACHED_TREATMENTS, Treatment::getTid);
+    private final EntityCache<Nurse> nurseCache = new EntityCache<>("Pflegekräfte", MAX_CACHED_NURSES, Nurse::getNid);
+    private final PatientIndex patientIndex = new PatientIndex();
+    private final TreatmentIndex treatmentIndex = new TreatmentIndex();
+
 
     /**
      * Factory class for creating DAO (Data Access Object) instances.
      * <p>
      * Implements the Singleton pattern to provide a single global instance
      * for creating DAO objects that share the same database connection.
+     * Each DAO writes via the writer connection and borrows a read connection
+     * from {@link ConnectionBuilder#getReadConnection()} for its queries.
+     * <p>
+     * The DAOs of patients, treatments and nurses share one {@link EntityCache} per type, so repeated reads are
+     * served from memory. Deleting a patient clears the treatment cache, because its treatments are deleted by
+     * the database as well. The {@link PatientIndex} and the {@link TreatmentIndex} follow the writes of the
+     * patient and the treatment cache.
      */
     private DaoFactory() {
+        this.patientCache.addDependent(this.treatmentCache);
+        this.patientCache.addListener(this.patientIndex);
+        this.treatmentCache.addListener(this.treatmentIndex);
     }
 
     /**
@@ -20,7 +44,7 @@ public class DaoFactory {
      *
      * @return The singleton instance of DaoFactory.
      */
-    public static DaoFactory getDaoFactory() {
+    synchronized public static DaoFactory getDaoFactory() {
         if (DaoFactory.instance == null) {
             DaoFactory.instance = new DaoFactory();
         }
@@ -34,15 +58,15 @@ public class DaoFactory {
      * @return A new instance of TreatmentDao.
      */
     public TreatmentDao createTreatmentDao() {
-        return new TreatmentDao(ConnectionBuilder.getConnection());
+        return new TreatmentDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection(), this.treatmentCache);
     }
 
     public TreatmentArchiveDao createTreatmentArchiveDao() {
-        return new TreatmentArchiveDao(ConnectionBuilder.getConnection());
+        return new TreatmentArchiveDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection());
     }
 
     public ArchivePatientDao createArchivePatientDao() {
-        return new ArchivePatientDao(ConnectionBuilder.getConnection());
+        return new ArchivePatientDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection());
     }
 
 
@@ -52,7 +76,7 @@ public class DaoFactory {
      * @return A new instance of PatientDao.
      */
     public PatientDao createPatientDAO() {
-        return new PatientDao(ConnectionBuilder.getConnection());
+        return new PatientDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection(), this.patientCache);
     }
 
 
@@ -61,12 +85,77 @@ public class DaoFactory {
      *
      * @return A new instance of NurseDao.
      */
-    public NurseDao createNurseDao() { return new NurseDao(ConnectionBuilder.getConnection()); }
+    public NurseDao createNurseDao() { return new NurseDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection(), this.nurseCache); }
 
     /**
      * Creates and returns a new AdminDao using a shared database connection.
      *
      * @return A new instance of AdminDao.
      */
-    public AdminDao createAdminDao() {return new AdminDao(ConnectionBuilder.getConnection());}
+    public AdminDao createAdminDao() {return new AdminDao(ConnectionBuilder.getConnection(), ConnectionBuilder.getReadConnection());}
+
+    /**
+     * Returns the cache shared by all PatientDaos.
+     *
+     * @return The patient cache.
+     */
+    public EntityCache<Patient> getPatientCache() {
+        return this.patientCache;
+    }
+
+    /**
+     * Returns the cache shared by all TreatmentDaos.
+     *
+     * @return The treatment cache.
+     */
+    public EntityCache<Treatment> getTreatmentCache() {
+        return this.treatmentCache;
+    }
+
+    /**
+     * Returns the cache shared by all NurseDaos.
+     *
+     * @return The nurse cache.
+     */
+    public EntityCache<Nurse> getNurseCache() {
+        return this.nurseCache;
+    }
+
+    /**
+     * Returns the prefix index for looking up patients by name. It follows the writes of the patient cache.
+     *
+     * @return The index shared by all patient lookups.
+     */
+    public PatientIndex getPatientIndex() {
+        return this.patientIndex;
+    }
+
+    /**
+     * Returns the index of the treatment summaries by patient. It follows the writes of the treatment cache.
+     *
+     * @return The index shared by all treatment lists.
+     */
+    public TreatmentIndex getTreatmentIndex() {
+        return this.treatmentIndex;
+    }
+
+    /**
+     * Empties all entity caches, e.g. after a rolled back transaction whose writes already reached a cache.
+     */
+    public void clearCaches() {
+        this.patientCache.clear();
+        this.treatmentCache.clear();
+        this.nurseCache.clear();
+    }
+
+    /**
+     * Returns the size and the hit and miss counters of all entity caches.
+     *
+     * @return One line of statistics per cache.
+     */
+    public String getCacheStatistics() {
+        return this.patientCache + System.lineSeparator() +
+                this.treatmentCache + System.lineSeparator() +
+                this.nurseCache;
+    }
 }
@@ -1,8 +1,22 @@
 package de.hitec.nhplus.datastorage;
 
+import de.hitec.nhplus.model.ChangeTracked;
+
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract base implementation of the {@link Dao} interface.
@@ -13,31 +27,111 @@ import java.util.List;
  * @param <T> The type of the entity the DAO handles.
  */
 public abstract class DaoImp<T> implements Dao<T> {
+    private static final StatementCache STATEMENT_CACHE = new StatementCache();
+
     protected Connection connection;
+    protected Connection readConnection;
+    private final EntityCache<T> cache;
+
+    /**
+     * Statements of a running batch, keyed by their SQL. While a batch runs, every call of
+     * {@link #prepareStatement(Connection, String)} for the writer connection returns the same statement per SQL,
+     * so the rows bound by the <code>get*Statement()</code> methods can be collected with {@link PreparedStatement#addBatch()}.
+     */
+    private final ThreadLocal<Map<String, PreparedStatement>> batchStatements = new ThreadLocal<>();
 
     /**
-     * Constructs a DaoImp with the given database connection.
+     * Constructs a DaoImp with the given database connection, which is used for reading and writing.
      *
      * @param connection the JDBC connection to use.
      */
     public DaoImp(Connection connection) {
+        this(connection, connection);
+    }
+
+    /**
+     * Constructs a DaoImp which writes via the given connection and queries via a separate read connection.
+     *
+     * @param connection     the JDBC connection to use for inserts, updates and deletes.
+     * @param readConnection the JDBC connection to use for queries.
+     */
+    public DaoImp(Connection connection, Connection readConnection) {
+        this(connection, readConnection, null);
+    }
+
+    /**
+     * Constructs a DaoImp which additionally serves reads from the given entity cache and keeps it up to date
+     * on every insert, update and delete.
+     *
+     * @param connection     the JDBC connection to use for inserts, updates and deletes.
+     * @param readConnection the JDBC connection to use for queries.
+     * @param cache          the cache shared by all DAOs of this entity type, or {@code null} for no caching.
+     */
+    public DaoImp(Connection connection, Connection readConnection, EntityCache<T> cache) {
         this.connection = connection;
+        this.readConnection = readConnection;
+        this.cache = cache;
     }
 
     /**
-     * Persists the given entity in the database.
+     * Persists the given entity in the database and sets the generated key on it. The write lock is held from the
+     * insert until the key has been read, so no insert of another thread can come in between.
      *
      * @param t the entity to create.
+     * @return the given entity with its generated key.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public T create(T t) throws SQLException {
+        ReentrantLock writeLock = ConnectionBuilder.getWriteLock();
+        writeLock.lock();
+        try {
+            execute(getCreateStatement(t));
+            setKey(t, readLastInsertedKey());
+        } finally {
+            writeLock.unlock();
+        }
+        takeChangedFields(t);
+        if (this.cache != null) {
+            this.cache.put(t);
+        }
+        return t;
+    }
+
+    /**
+     * Persists all given entities within a single transaction, so SQLite syncs to disk only once.
+     * <p>
+     * The inserts are executed one after another instead of as a JDBC batch, because the SQLite driver only
+     * reports the key of the last row of a batch.
+     *
+     * @param entities the entities to create.
+     * @return the generated keys in the order of the given entities.
      * @throws SQLException if a database access error occurs.
      */
     @Override
-    public void create(T t) throws SQLException {
-        getCreateStatement(t).executeUpdate();
+    public List<Long> createAll(List<T> entities) throws SQLException {
+        List<Long> keys = new ArrayList<>(entities.size());
+        inTransaction(() -> {
+            for (T t : entities) {
+                execute(getCreateStatement(t));
+                keys.add(readLastInsertedKey());
+            }
+        });
+        for (int i = 0; i < entities.size(); i++) {
+            setKey(entities.get(i), keys.get(i));
+            takeChangedFields(entities.get(i));
+        }
+        if (this.cache != null) {
+            for (T t : entities) {
+                this.cache.put(t);
+            }
+        }
+        return keys;
     }
 
 
     /**
-     * Reads an entity identified by the given key from the database.
+     * Reads an entity identified by the given key from the cache or, if it is not cached, from the database.
      *
      * @param key the unique identifier of the entity.
      * @return the entity if found, or null if not found.
@@ -45,34 +139,295 @@ public abstract class DaoImp<T> implements Dao<T> {
      */
     @Override
     public T read(long key) throws SQLException {
+        if (this.cache != null) {
+            T cached = this.cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long modificationCount = this.cache != null ? this.cache.getModificationCount() : 0;
         T object = null;
-        ResultSet result = getReadByIDStatement(key).executeQuery();
-        if (result.next()) {
-            object = getInstanceFromResultSet(result);
+        PreparedStatement statement = getReadByIDStatement(key);
+        try (ResultSet result = statement.executeQuery()) {
+            if (result.next()) {
+                object = getRowMapper().map(result);
+            }
+        } finally {
+            releaseStatement(statement);
+        }
+        if (this.cache != null && object != null) {
+            object = this.cache.load(List.of(object), modificationCount, false).get(0);
         }
         return object;
     }
 
     /**
-     * Reads all entities of this type from the database.
+     * Reads all entities of this type. If the cache holds all entities, the database is not queried.
      *
      * @return a list of all entities.
      * @throws SQLException if a database access error occurs.
      */
     @Override
     public List<T> readAll() throws SQLException {
-        return getListFromResultSet(getReadAllStatement().executeQuery());
+        if (this.cache == null) {
+            return executeQuery(getReadAllStatement());
+        }
+        List<T> cached = this.cache.getAll();
+        if (cached != null) {
+            return cached;
+        }
+        long modificationCount = this.cache.getModificationCount();
+        List<T> all = executeQuery(getReadAllStatement());
+        return this.cache.load(all, modificationCount, true);
     }
 
     /**
-     * Updates the given entity in the database.
+     * Reads the next page of entities in ascending order of the primary key.
      *
-     * @param t the entity to update.
+     * @param afterKey the primary key of the last entity of the previous page, or {@code 0} for the first page.
+     * @param limit    the maximum number of entities to return.
+     * @return a list of at most {@code limit} entities.
      * @throws SQLException if a database access error occurs.
      */
     @Override
+    public List<T> readPage(long afterKey, int limit) throws SQLException {
+        final String SQL = "SELECT " + getRowMapper().getColumnList() + " FROM " + getTableName() +
+                " WHERE " + getKeyColumn() + " > ? " +
+                "ORDER BY " + getKeyColumn() + " LIMIT ?";
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        statement.setLong(1, afterKey);
+        statement.setInt(2, limit);
+        return executeQueryAndCache(statement);
+    }
+
+    /**
+     * Reads the next page of entities in ascending order of the given column, using the primary key
+     * as tie-breaker. The position is compared as a row value, so SQLite can seek on an index over the column.
+     *
+     * @param sortColumn     the column to sort by.
+     * @param afterSortValue the sort value of the last entity of the previous page, or {@code null} for the first page.
+     * @param afterKey       the primary key of the last entity of the previous page.
+     * @param limit          the maximum number of entities to return.
+     * @return a list of at most {@code limit} entities.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public List<T> readPage(String sortColumn, Object afterSortValue, long afterKey, int limit) throws SQLException {
+        if (!getSortColumns().contains(sortColumn)) {
+            throw new IllegalArgumentException("Nach der Spalte " + sortColumn + " kann nicht sortiert werden.");
+        }
+        String orderBy = " ORDER BY " + sortColumn + ", " + getKeyColumn() + " LIMIT ?";
+        String select = "SELECT " + getRowMapper().getColumnList() + " FROM " + getTableName();
+        PreparedStatement statement;
+        if (afterSortValue == null) {
+            statement = prepareStatement(this.readConnection, select + orderBy);
+            statement.setInt(1, limit);
+        } else {
+            statement = prepareStatement(this.readConnection, select +
+                    " WHERE (" + sortColumn + ", " + getKeyColumn() + ") > (?, ?)" + orderBy);
+            if (afterSortValue instanceof LocalDate date) {
+                setDate(statement, 1, date);
+            } else if (afterSortValue instanceof LocalTime time) {
+                setTime(statement, 1, time);
+            } else {
+                statement.setObject(1, afterSortValue);
+            }
+            statement.setLong(2, afterKey);
+            statement.setInt(3, limit);
+        }
+        return executeQueryAndCache(statement);
+    }
+
+    /**
+     * Counts the entities of this type.
+     *
+     * @return the number of rows of the table.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public long count() throws SQLException {
+        final String SQL = "SELECT COUNT(*) FROM " + getTableName();
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        try (ResultSet result = statement.executeQuery()) {
+            return result.next() ? result.getLong(1) : 0;
+        } finally {
+            releaseStatement(statement);
+        }
+    }
+
+    /**
+     * Reads the entities at the given position of the order of the given column, using the primary key as
+     * tie-breaker.
+     *
+     * @param sortColumn the column to sort by.
+     * @param descending {@code true} for descending order.
+     * @param offset     the number of entities to skip.
+     * @param limit      the maximum number of entities to return.
+     * @return a list of at most {@code limit} entities.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public List<T> readPage(String sortColumn, boolean descending, long offset, int limit) throws SQLException {
+        return executeQueryAndCache(
+                prepareOffsetPage(getRowMapper().getColumnList(), sortColumn, descending, offset, limit));
+    }
+
+    /**
+     * Prepares the query for a page at a given position. Only the keys of the skipped rows are read: the subquery
+     * walks the index of the sort column, or the table itself when sorting by the primary key, and the selected
+     * columns are only read for the rows of the page.
+     *
+     * @param columnList the columns to select, matching the row mapper of the caller.
+     * @param sortColumn the column to sort by.
+     * @param descending {@code true} for descending order.
+     * @param offset     the number of rows to skip.
+     * @param limit      the maximum number of rows to return.
+     * @return the prepared statement, with all parameters set.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    protected PreparedStatement prepareOffsetPage(String columnList, String sortColumn, boolean descending,
+                                                  long offset, int limit) throws SQLException {
+        if (!getSortColumns().contains(sortColumn)) {
+            throw new IllegalArgumentException("Nach der Spalte " + sortColumn + " kann nicht sortiert werden.");
+        }
+        String direction = descending ? " DESC" : "";
+        String orderBy = " ORDER BY " + sortColumn + direction + ", " + getKeyColumn() + direction;
+        final String SQL = "SELECT " + columnList + " FROM " + getTableName() +
+                " WHERE " + getKeyColumn() + " IN (SELECT " + getKeyColumn() + " FROM " + getTableName() +
+                orderBy + " LIMIT ? OFFSET ?)" + orderBy;
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        statement.setInt(1, limit);
+        statement.setLong(2, offset);
+        return statement;
+    }
+
+    /**
+     * Streams all entities of this type directly from the database cursor. Closing the stream closes the
+     * result set and releases the statement.
+     *
+     * @param fetchSize the number of rows the driver should fetch at once.
+     * @return a stream over all entities.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public Stream<T> streamAll(int fetchSize) throws SQLException {
+        return stream(getReadAllStatement(), fetchSize);
+    }
+
+    /**
+     * Executes the given query and returns its rows as a lazily populated stream. The statement belongs to
+     * the stream until the stream is closed.
+     *
+     * @param statement the query to execute.
+     * @param fetchSize the number of rows the driver should fetch at once.
+     * @return a stream over the mapped rows.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected Stream<T> stream(PreparedStatement statement, int fetchSize) throws SQLException {
+        ResultSet result;
+        try {
+            statement.setFetchSize(fetchSize);
+            result = statement.executeQuery();
+        } catch (SQLException exception) {
+            releaseStatement(statement);
+            throw exception;
+        }
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!result.next()) {
+                        return false;
+                    }
+                    action.accept(getRowMapper().map(result));
+                    return true;
+                } catch (SQLException exception) {
+                    throw new IllegalStateException("Datensatz konnte nicht gelesen werden.", exception);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                result.close();
+                statement.setFetchSize(0);
+            } catch (SQLException exception) {
+                exception.printStackTrace();
+            } finally {
+                releaseStatement(statement);
+            }
+        });
+    }
+
+    /**
+     * Updates the given entity in the database. If the DAO knows its {@link #getUpdateColumns() columns} and the
+     * entity tracks its changes, only the changed columns are written, and nothing at all if nothing has changed.
+     *
+     * @param t the entity to update.
+     * @throws SQLException if a database access error occurs. The changes are tracked as unwritten again, also if
+     *                      a value of the entity cannot be converted for the statement.
+     */
+    @Override
     public void update(T t) throws SQLException {
-        getUpdateStatement(t).executeUpdate();
+        Set<String> changed = takeChangedFields(t);
+        if (changed != null && changed.isEmpty()) {
+            return;
+        }
+        try {
+            execute(changed == null ? getUpdateStatement(t) : prepareUpdate(t, changed));
+        } catch (SQLException | RuntimeException exception) {
+            restoreChangedFields(t, changed);
+            if (this.cache != null) {
+                this.cache.invalidate(getKey(t));
+            }
+            throw exception;
+        }
+        if (this.cache != null) {
+            this.cache.put(t);
+        }
+    }
+
+    /**
+     * Updates all given entities as one JDBC batch within a single transaction. Like {@link #update(Object)} only
+     * changed columns are written and unchanged entities are skipped; entities with the same changed columns share
+     * one batch statement.
+     *
+     * @param entities the entities to update.
+     * @throws SQLException if a database access error occurs. No entity is updated and the changes of all entities
+     *                      are tracked as unwritten again.
+     */
+    @Override
+    public void updateAll(List<T> entities) throws SQLException {
+        List<Set<String>> changes = new ArrayList<>(entities.size());
+        for (T t : entities) {
+            changes.add(takeChangedFields(t));
+        }
+        try {
+            executeBatch(() -> {
+                for (int i = 0; i < entities.size(); i++) {
+                    Set<String> changed = changes.get(i);
+                    if (changed == null) {
+                        requireStatement(getUpdateStatement(entities.get(i))).addBatch();
+                    } else if (!changed.isEmpty()) {
+                        requireStatement(prepareUpdate(entities.get(i), changed)).addBatch();
+                    }
+                }
+            });
+        } catch (SQLException | RuntimeException exception) {
+            for (int i = 0; i < entities.size(); i++) {
+                restoreChangedFields(entities.get(i), changes.get(i));
+            }
+            if (this.cache != null) {
+                for (T t : entities) {
+                    this.cache.invalidate(getKey(t));
+                }
+            }
+            throw exception;
+        }
+        if (this.cache != null) {
+            for (T t : entities) {
+                this.cache.put(t);
+            }
+        }
     }
 
     /**
@@ -83,7 +438,30 @@ public abstract class DaoImp<T> implements Dao<T> {
      */
     @Override
     public void deleteById(long key) throws SQLException {
-        getDeleteStatement(key).executeUpdate();
+        execute(getDeleteStatement(key));
+        if (this.cache != null) {
+            this.cache.delete(key);
+        }
+    }
+
+    /**
+     * Deletes all entities with the given keys as one JDBC batch within a single transaction.
+     *
+     * @param keys the unique identifiers of the entities to delete.
+     * @throws SQLException if a database access error occurs.
+     */
+    @Override
+    public void deleteAllById(List<Long> keys) throws SQLException {
+        executeBatch(() -> {
+            for (long key : keys) {
+                requireStatement(getDeleteStatement(key)).addBatch();
+            }
+        });
+        if (this.cache != null) {
+            for (long key : keys) {
+                this.cache.delete(key);
+            }
+        }
     }
 
     /**
@@ -96,29 +474,424 @@ public abstract class DaoImp<T> implements Dao<T> {
      */
     @Override
     public void exportById(long key) throws SQLException{
-        getExportStatement(key).executeUpdate();
+        execute(getExportStatement(key));
     }
 
     /**
-     * Maps a single row from the given {@link ResultSet} to an entity instance.
+     * Returns a compiled statement for the given SQL on the given connection. Statements are cached per connection
+     * and reused across calls, so SQLite parses each SQL only once. The statement belongs to the caller until it is
+     * handed back by {@link #releaseStatement(PreparedStatement)}.
      *
-     * @param set the result set positioned at a valid row.
-     * @return an instance of the entity mapped from the current row.
+     * @param connection the connection to prepare the statement on.
+     * @param sql        the SQL of the statement.
+     * @return the prepared statement, without any bound parameters.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    protected PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        Map<String, PreparedStatement> batch = this.batchStatements.get();
+        if (batch == null || connection != this.connection) {
+            return STATEMENT_CACHE.borrow(connection, sql);
+        }
+        PreparedStatement statement = batch.get(sql);
+        if (statement == null) {
+            statement = STATEMENT_CACHE.borrow(connection, sql);
+            batch.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Hands a statement obtained by {@link #prepareStatement(Connection, String)} back to the cache.
+     *
+     * @param statement the statement to release, may be {@code null}.
+     */
+    protected void releaseStatement(PreparedStatement statement) {
+        STATEMENT_CACHE.release(statement);
+    }
+
+    /**
+     * Executes the given insert, update or delete statement and releases it afterwards.
+     * The write lock of {@link ConnectionBuilder} is held while the statement runs.
+     *
+     * @param statement the statement to execute.
+     * @return the number of affected rows.
      * @throws SQLException if a database access error occurs.
      */
-    protected abstract T getInstanceFromResultSet(ResultSet set) throws SQLException;
+    protected int execute(PreparedStatement statement) throws SQLException {
+        ReentrantLock writeLock = ConnectionBuilder.getWriteLock();
+        writeLock.lock();
+        try {
+            return requireStatement(statement).executeUpdate();
+        } finally {
+            writeLock.unlock();
+            releaseStatement(statement);
+        }
+    }
+
+    /**
+     * Runs the given work on the writer connection within a single {@link Transaction}. The transaction is committed
+     * if the work completes and rolled back if it fails. If the current thread already runs a transaction,
+     * the work joins it.
+     *
+     * @param work the database work to run.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected void inTransaction(SqlWork work) throws SQLException {
+        try (Transaction transaction = Transaction.begin()) {
+            work.run();
+            transaction.commit();
+        }
+    }
 
     /**
-     * Maps all rows from the given {@link ResultSet} to a list of entities.
+     * Runs the given work in batch mode within a single transaction. The statements bound by the work are
+     * executed as JDBC batches afterwards.
      *
-     * @param set the result set containing multiple rows.
-     * @return a list of entity instances mapped from the result set.
+     * @param work the work adding rows to the batch.
      * @throws SQLException if a database access error occurs.
      */
-    protected abstract ArrayList<T> getListFromResultSet(ResultSet set) throws SQLException;
+    private void executeBatch(SqlWork work) throws SQLException {
+        Map<String, PreparedStatement> batch = new LinkedHashMap<>();
+        this.batchStatements.set(batch);
+        try {
+            inTransaction(() -> {
+                work.run();
+                for (PreparedStatement statement : batch.values()) {
+                    statement.executeBatch();
+                }
+            });
+        } finally {
+            this.batchStatements.remove();
+            for (PreparedStatement statement : batch.values()) {
+                try {
+                    statement.clearBatch();
+                } catch (SQLException exception) {
+                    exception.printStackTrace();
+                }
+                releaseStatement(statement);
+            }
+        }
+    }
+
+    /**
+     * Reads the key SQLite generated for the last insert on the writer connection.
+     *
+     * @return the generated key.
+     * @throws SQLException if a database access error occurs.
+     */
+    private long readLastInsertedKey() throws SQLException {
+        PreparedStatement statement = prepareStatement(this.connection, "SELECT last_insert_rowid()");
+        try (ResultSet result = statement.executeQuery()) {
+            result.next();
+            return result.getLong(1);
+        } finally {
+            releaseStatement(statement);
+        }
+    }
+
+    /**
+     * Checks that a <code>get*Statement()</code> method actually returned a statement. These methods print
+     * and swallow errors while preparing, which would otherwise surface as a {@link NullPointerException}.
+     *
+     * @param statement the statement to check.
+     * @return the given statement.
+     * @throws SQLException if the statement is {@code null}.
+     */
+    private static PreparedStatement requireStatement(PreparedStatement statement) throws SQLException {
+        if (statement == null) {
+            throw new SQLException("Statement konnte nicht vorbereitet werden.");
+        }
+        return statement;
+    }
+
+    /**
+     * Executes the given query, maps all rows to a list, closes the result set and releases the statement.
+     *
+     * @param statement the query to execute.
+     * @return a list of all entities mapped from the result.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected List<T> executeQuery(PreparedStatement statement) throws SQLException {
+        return executeQuery(statement, getRowMapper());
+    }
+
+    /**
+     * Executes the given query, maps all rows with the given mapper, closes the result set and releases the statement.
+     * Used for projections, whose results bypass the cache.
+     *
+     * @param statement the query to execute.
+     * @param mapper    the mapper matching the select list of the query.
+     * @param <R>       the type of the mapped objects.
+     * @return a list of all objects mapped from the result.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected <R> List<R> executeQuery(PreparedStatement statement, RowMapper<R> mapper) throws SQLException {
+        try (ResultSet result = statement.executeQuery()) {
+            return mapper.mapAll(result);
+        } finally {
+            releaseStatement(statement);
+        }
+    }
+
+    /**
+     * Executes the given query like {@link #executeQuery(PreparedStatement)} and adds the mapped entities
+     * to the cache.
+     *
+     * @param statement the query to execute.
+     * @return a list of all entities mapped from the result; entities which were already cached are returned as
+     * their cached instances.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected List<T> executeQueryAndCache(PreparedStatement statement) throws SQLException {
+        if (this.cache == null) {
+            return executeQuery(statement);
+        }
+        long modificationCount = this.cache.getModificationCount();
+        List<T> entities = executeQuery(statement);
+        return this.cache.load(entities, modificationCount, false);
+    }
+
+    /**
+     * Returns the cache of this DAO.
+     *
+     * @return the entity cache, or {@code null} if the DAO does not cache.
+     */
+    protected EntityCache<T> getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Turns the words typed into a search field into an FTS5 query which finds rows containing all words, each one
+     * also as the beginning of a longer word. The words are quoted, so operators and special characters of the FTS5
+     * query syntax are searched for literally.
+     *
+     * @param text the words to search for.
+     * @return the FTS5 query, or {@code null} if the text contains no words.
+     */
+    protected static String toFullTextQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (!term.isEmpty()) {
+                query.append(query.isEmpty() ? "" : " ").append('"').append(term).append("\"*");
+            }
+        }
+        return query.isEmpty() ? null : query.toString();
+    }
+
+    /**
+     * Binds a date as epoch days, the storage format of all date columns.
+     *
+     * @param statement the statement to bind the date to.
+     * @param index     the index of the parameter.
+     * @param date      the date, may be {@code null}.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected static void setDate(PreparedStatement statement, int index, LocalDate date) throws SQLException {
+        if (date == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setLong(index, date.toEpochDay());
+        }
+    }
+
+    /**
+     * Reads a date stored as epoch days.
+     *
+     * @param result the result set positioned at a valid row.
+     * @param index  the index of the column.
+     * @return the date, or {@code null} if the column is <code>NULL</code>.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected static LocalDate getDate(ResultSet result, int index) throws SQLException {
+        long epochDay = result.getLong(index);
+        return result.wasNull() ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Binds a time as minutes of the day, the storage format of all time columns.
+     *
+     * @param statement the statement to bind the time to.
+     * @param index     the index of the parameter.
+     * @param time      the time.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected static void setTime(PreparedStatement statement, int index, LocalTime time) throws SQLException {
+        statement.setInt(index, time.getHour() * 60 + time.getMinute());
+    }
+
+    /**
+     * Reads a time stored as minutes of the day.
+     *
+     * @param result the result set positioned at a valid row.
+     * @param index  the index of the column.
+     * @return the time.
+     * @throws SQLException if a database access error occurs.
+     */
+    protected static LocalTime getTime(ResultSet result, int index) throws SQLException {
+        return LocalTime.ofSecondOfDay(result.getInt(index) * 60L);
+    }
+
+    /**
+     * Prepares an <code>UPDATE</code> of the given columns of an entity, identified by its primary key.
+     *
+     * @param t      the entity to update.
+     * @param fields the fields whose columns are written, or {@code null} for all columns of
+     *               {@link #getUpdateColumns()}.
+     * @return the prepared statement, with all parameters set.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    protected PreparedStatement prepareUpdate(T t, Set<String> fields) throws SQLException {
+        List<UpdateColumn<T>> columns = new ArrayList<>();
+        for (UpdateColumn<T> column : getUpdateColumns()) {
+            if (fields == null || fields.contains(column.field())) {
+                columns.add(column);
+            }
+        }
+        StringBuilder sql = new StringBuilder("UPDATE ").append(getTableName()).append(" SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns.get(i).column()).append(" = ?");
+        }
+        sql.append(" WHERE ").append(getKeyColumn()).append(" = ?");
+        PreparedStatement statement = prepareStatement(this.connection, sql.toString());
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).binder().bind(statement, i + 1, t);
+        }
+        statement.setLong(columns.size() + 1, getKey(t));
+        return statement;
+    }
+
+    /**
+     * Takes the changed fields of an entity which tracks its changes, keeping only fields which are stored in a
+     * column of {@link #getUpdateColumns()}.
+     *
+     * @param t the entity.
+     * @return the changed fields, or {@code null} if all columns have to be written, because the DAO does not know
+     * its columns or the entity does not track its changes.
+     */
+    private Set<String> takeChangedFields(T t) {
+        List<UpdateColumn<T>> columns = getUpdateColumns();
+        if (columns == null || !(t instanceof ChangeTracked tracked)) {
+            return null;
+        }
+        Set<String> changed = tracked.takeChangedFields();
+        Set<String> stored = new HashSet<>();
+        for (UpdateColumn<T> column : columns) {
+            stored.add(column.field());
+        }
+        changed.retainAll(stored);
+        return changed;
+    }
+
+    /**
+     * Marks fields taken by {@link #takeChangedFields(Object)} as changed again, because they were not written.
+     *
+     * @param t       the entity.
+     * @param changed the taken fields, may be {@code null}.
+     */
+    private void restoreChangedFields(T t, Set<String> changed) {
+        if (changed != null && t instanceof ChangeTracked tracked) {
+            tracked.restoreChangedFields(changed);
+        }
+    }
+
+    /**
+     * Closes all cached statements of the given connection. Called before the connection itself is closed.
+     *
+     * @param connection the connection whose statements should be closed.
+     */
+    static void closeStatements(Connection connection) {
+        STATEMENT_CACHE.closeAll(connection);
+    }
+
+    /**
+     * Database work which may throw a {@link SQLException}.
+     */
+    @FunctionalInterface
+    protected interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Binds the value of a column of an entity to a parameter of a statement.
+     *
+     * @param <T> the type of the entity.
+     */
+    @FunctionalInterface
+    protected interface ParameterBinder<T> {
+        void bind(PreparedStatement statement, int index, T t) throws SQLException;
+    }
+
+    /**
+     * A column written by <code>UPDATE</code> statements.
+     *
+     * @param field  the name of the field of the model class stored in the column, see {@link ChangeTracked}.
+     * @param column the name of the column.
+     * @param binder binds the value of the field.
+     * @param <T>    the type of the entity.
+     */
+    protected record UpdateColumn<T>(String field, String column, ParameterBinder<T> binder) {
+    }
+
+    /**
+     * Returns the columns written when an entity is updated, which allows updating only the changed columns.
+     *
+     * @return the columns in the order of the full <code>UPDATE</code>, or {@code null} if the DAO always writes the
+     * statement of {@link #getUpdateStatement(Object)}.
+     */
+    protected List<UpdateColumn<T>> getUpdateColumns() {
+        return null;
+    }
+
+    /**
+     * Returns the primary key of the given entity.
+     *
+     * @param t the entity.
+     * @return the primary key.
+     */
+    protected abstract long getKey(T t);
+
+    /**
+     * Sets the primary key generated by the database on a newly created entity.
+     *
+     * @param t   the created entity.
+     * @param key the generated primary key.
+     */
+    protected abstract void setKey(T t, long key);
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return the table name.
+     */
+    protected abstract String getTableName();
+
+    /**
+     * Returns the name of the primary key column of the table.
+     *
+     * @return the primary key column.
+     */
+    protected abstract String getKeyColumn();
+
+    /**
+     * Returns the columns which may be used as sort key for paged reads. Only columns which never
+     * contain {@code NULL} qualify, because rows with {@code NULL} would drop out of a keyset comparison.
+     *
+     * @return the sortable columns.
+     */
+    protected abstract Set<String> getSortColumns();
+
+    /**
+     * Returns the mapper of the entity. All queries of the DAO select the columns of this mapper, see
+     * {@link RowMapper#getColumnList()}.
+     *
+     * @return the row mapper of the entity.
+     */
+    protected abstract RowMapper<T> getRowMapper();
 
     /**
      * Creates a {@link PreparedStatement} for inserting the given entity into the database.
+     * The statement is obtained by {@link #prepareStatement(Connection, String)} and released by the caller.
      *
      * @param t the entity to insert.
      * @return the prepared statement ready for execution.
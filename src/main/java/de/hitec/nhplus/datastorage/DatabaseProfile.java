@@ -0,0 +1,199 @@
+package de.hitec.nhplus.datastorage;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Performance settings of the SQLite connections, read from the <code>.env</code> file.
+ * <p>
+ * {@code DB_PROFILE} selects one of the presets <code>safe</code>, <code>balanced</code> or
+ * <code>fast-terminal</code>; single settings of the preset can be overridden by {@code DB_JOURNAL_MODE},
+ * {@code DB_SYNCHRONOUS}, {@code DB_CACHE_SIZE}, {@code DB_MMAP_SIZE}, {@code DB_TEMP_STORE},
+ * {@code DB_BUSY_TIMEOUT} and {@code DB_PAGE_SIZE}. Without {@code DB_PROFILE} the preset <code>safe</code> is used,
+ * which keeps the defaults of SQLite.
+ * <p>
+ * The settings are applied as <code>PRAGMA</code>s to every connection. The journal mode and the page size are
+ * properties of the database file, so they are only set by the writer connection. With encryption the page size is
+ * also the size of the encrypted pages; it only takes effect when the database file is created.
+ */
+public class DatabaseProfile {
+
+    private static final String DEFAULT_PROFILE = "safe";
+
+    private static final List<String> PRAGMAS = List.of(
+            "page_size", "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout");
+
+    private static final Set<String> WRITER_PRAGMAS = Set.of("page_size", "journal_mode");
+
+    private static final Map<String, Set<String>> ALLOWED_VALUES = Map.of(
+            "journal_mode", Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF"),
+            "synchronous", Set.of("OFF", "NORMAL", "FULL", "EXTRA"),
+            "temp_store", Set.of("DEFAULT", "FILE", "MEMORY"));
+
+    private static final Map<String, Map<String, String>> PRESETS = Map.of(
+            "safe", preset("4096", "DELETE", "FULL", "-2000", "0", "DEFAULT", "5000"),
+            "balanced", preset("4096", "WAL", "NORMAL", "-16000", "0", "MEMORY", "5000"),
+            "fast-terminal", preset("8192", "WAL", "NORMAL", "-64000", "268435456", "MEMORY", "10000"));
+
+    private final String name;
+    private final Map<String, String> pragmas;
+
+    private DatabaseProfile(String name, Map<String, String> pragmas) {
+        this.name = name;
+        this.pragmas = pragmas;
+    }
+
+    /**
+     * Reads the profile from the given environment.
+     *
+     * @param dotenv The loaded <code>.env</code> file.
+     * @param pooled {@code true} if the database is used by separate reader connections, which requires
+     *               the WAL journal mode.
+     * @return The profile with all overrides applied.
+     * @throws IllegalArgumentException If the profile or one of the overrides is unknown or invalid.
+     */
+    public static DatabaseProfile load(Dotenv dotenv, boolean pooled) {
+        String name = dotenv.get("DB_PROFILE", DEFAULT_PROFILE).trim().toLowerCase();
+        Map<String, String> preset = PRESETS.get(name);
+        if (preset == null) {
+            throw new IllegalArgumentException("Unbekanntes Datenbankprofil " + name + ", erlaubt sind " +
+                    PRESETS.keySet() + ".");
+        }
+        Map<String, String> pragmas = new LinkedHashMap<>(preset);
+        for (String pragma : PRAGMAS) {
+            String value = dotenv.get("DB_" + pragma.toUpperCase());
+            if (value != null && !value.isBlank()) {
+                pragmas.put(pragma, validate(pragma, value.trim()));
+            }
+        }
+        if (pooled && !pragmas.get("journal_mode").equals("WAL")) {
+            System.out.println("Journalmodus " + pragmas.get("journal_mode") +
+                    " wird durch WAL ersetzt, da lesende Verbindungen konfiguriert sind.");
+            pragmas.put("journal_mode", "WAL");
+        }
+        return new DatabaseProfile(name, pragmas);
+    }
+
+    /**
+     * Applies the profile to a newly opened connection.
+     *
+     * @param connection The connection to configure.
+     * @param writer     {@code true} for the connection which writes to the database.
+     * @throws SQLException If a <code>PRAGMA</code> fails.
+     */
+    public void apply(Connection connection, boolean writer) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> pragma : this.pragmas.entrySet()) {
+                if (writer || !WRITER_PRAGMAS.contains(pragma.getKey())) {
+                    // PRAGMA does not accept parameters; all values have been validated by load().
+                    statement.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the values the database actually uses on the given connection, which may differ from the profile,
+     * e.g. if the database file already has another page size.
+     *
+     * @param connection The connection to inspect.
+     * @throws SQLException If a <code>PRAGMA</code> cannot be read.
+     */
+    public void log(Connection connection) throws SQLException {
+        StringBuilder values = new StringBuilder();
+        try (Statement statement = connection.createStatement()) {
+            for (String pragma : PRAGMAS) {
+                try (ResultSet result = statement.executeQuery("PRAGMA " + pragma)) {
+                    if (result.next()) {
+                        values.append(values.isEmpty() ? "" : ", ").append(pragma).append('=')
+                                .append(describe(pragma, result.getString(1)));
+                    }
+                }
+            }
+        }
+        System.out.println("Datenbankprofil " + this.name + ": " + values);
+    }
+
+    /**
+     * Returns the name of the preset the profile is based on.
+     *
+     * @return <code>safe</code>, <code>balanced</code> or <code>fast-terminal</code>.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    private static Map<String, String> preset(String pageSize, String journalMode, String synchronous,
+                                              String cacheSize, String mmapSize, String tempStore,
+                                              String busyTimeout) {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        pragmas.put("page_size", pageSize);
+        pragmas.put("journal_mode", journalMode);
+        pragmas.put("synchronous", synchronous);
+        pragmas.put("cache_size", cacheSize);
+        pragmas.put("mmap_size", mmapSize);
+        pragmas.put("temp_store", tempStore);
+        pragmas.put("busy_timeout", busyTimeout);
+        return pragmas;
+    }
+
+    /**
+     * Checks a value from the <code>.env</code> file, since it ends up in the SQL of a <code>PRAGMA</code>.
+     *
+     * @param pragma The name of the pragma.
+     * @param value  The configured value.
+     * @return The value in the form used by the profile.
+     * @throws IllegalArgumentException If the value is not allowed for the pragma.
+     */
+    private static String validate(String pragma, String value) {
+        Set<String> allowed = ALLOWED_VALUES.get(pragma);
+        if (allowed != null) {
+            String upper = value.toUpperCase();
+            if (!allowed.contains(upper)) {
+                throw new IllegalArgumentException("Ungültiger Wert " + value + " für DB_" +
+                        pragma.toUpperCase() + ", erlaubt sind " + allowed + ".");
+            }
+            return upper;
+        }
+        try {
+            return Long.toString(Long.parseLong(value));
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("DB_" + pragma.toUpperCase() + " muss eine Zahl sein, nicht " +
+                    value + ".", exception);
+        }
+    }
+
+    /**
+     * Translates the numeric values SQLite reports for some pragmas into their names.
+     *
+     * @param pragma The name of the pragma.
+     * @param value  The value reported by SQLite.
+     * @return The name of the value, or the value itself.
+     */
+    private static String describe(String pragma, String value) {
+        return switch (pragma) {
+            case "synchronous" -> switch (value) {
+                case "0" -> "OFF";
+                case "1" -> "NORMAL";
+                case "2" -> "FULL";
+                case "3" -> "EXTRA";
+                default -> value;
+            };
+            case "temp_store" -> switch (value) {
+                case "0" -> "DEFAULT";
+                case "1" -> "FILE";
+                case "2" -> "MEMORY";
+                default -> value;
+            };
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,309 @@
+package de.hitec.nhplus.datastorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-bounded cache of the entities of one type, keyed by their primary key.
+ * <p>
+ * The cache is filled by the reads of a {@link DaoImp} and kept up to date by its inserts, updates and deletes
+ * (write-through), so repeated reads are served from memory. If more than {@code maxSize} entities are cached, the
+ * least recently used ones are evicted.
+ * <p>
+ * The cache is an identity map: a row is represented by one instance as long as it is cached, and reads return the
+ * cached instance instead of a fresh copy. Entities loaded from the database are only added if the cache has not
+ * been modified since the load started (see {@link #getModificationCount()}), so a slow read never overwrites a
+ * newer write.
+ * <p>
+ * Once all entities of the table have been loaded, the cache is marked as complete and can answer
+ * {@link #getAll()} by itself. It loses this state as soon as an entity is evicted or invalidated.
+ * <p>
+ * A {@link WriteListener} is told about every write passing through the cache, e.g. to keep an index of the
+ * entities up to date.
+ *
+ * @param <T> the type of the cached entities.
+ */
+public class EntityCache<T> {
+
+    private final String name;
+    private final int maxSize;
+    private final ToLongFunction<T> keyOf;
+    private final LinkedHashMap<Long, T> entities;
+    private final List<EntityCache<?>> dependents = new ArrayList<>();
+    private final List<WriteListener<T>> listeners = new ArrayList<>();
+    private boolean complete;
+    private long modificationCount;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param name    the name of the cache, used for the statistics.
+     * @param maxSize the maximum number of cached entities.
+     * @param keyOf   the function returning the primary key of an entity.
+     */
+    public EntityCache(String name, int maxSize, ToLongFunction<T> keyOf) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.keyOf = keyOf;
+        this.entities = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    EntityCache.this.complete = false;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Registers a cache whose entities depend on the entities of this cache, e.g. because they are deleted
+     * by a cascading foreign key. The dependent cache is cleared whenever an entity of this cache is deleted.
+     *
+     * @param dependent the dependent cache.
+     */
+    public synchronized void addDependent(EntityCache<?> dependent) {
+        this.dependents.add(dependent);
+    }
+
+    /**
+     * Registers a listener which is told about every insert, update and delete of an entity of this cache.
+     *
+     * @param listener the listener.
+     */
+    public synchronized void addListener(WriteListener<T> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Returns the cached entity with the given key.
+     *
+     * @param key the primary key of the entity.
+     * @return the cached entity, or {@code null} if it is not cached.
+     */
+    public synchronized T get(long key) {
+        T entity = this.entities.get(key);
+        if (entity == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return entity;
+    }
+
+    /**
+     * Returns all entities of the table, ordered by their primary key, if the cache is complete.
+     *
+     * @return all entities, or {@code null} if the cache does not hold all of them.
+     */
+    public synchronized List<T> getAll() {
+        if (!this.complete) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        List<T> all = new ArrayList<>(this.entities.values());
+        all.sort(Comparator.comparingLong(this.keyOf));
+        return all;
+    }
+
+    /**
+     * Indicates whether the cache holds all entities of the table.
+     *
+     * @return {@code true} if the cache is complete.
+     */
+    public synchronized boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Returns the number of modifications of the cache so far. A reader takes it before querying the database and
+     * hands it to {@link #load(List, long, boolean)} afterwards.
+     *
+     * @return the current modification count.
+     */
+    public synchronized long getModificationCount() {
+        return this.modificationCount;
+    }
+
+    /**
+     * Takes over entities which were read from the database and returns the cached instances for them. An entity
+     * which is already cached is not replaced: the cached instance is returned instead of the one just read, so each
+     * row is represented by a single instance, and edits of that instance which have not been written yet are kept.
+     * Entities which are not cached yet are only added if the cache has not been modified in the meantime.
+     *
+     * @param entities          the entities read from the database.
+     * @param modificationCount the modification count taken before the entities were read.
+     * @param complete          {@code true} if the entities are all entities of the table.
+     * @return the entities in the same order, each one replaced by its cached instance if there is one.
+     */
+    public synchronized List<T> load(List<T> entities, long modificationCount, boolean complete) {
+        boolean current = modificationCount == this.modificationCount;
+        Set<Long> keys = current && complete ? new HashSet<>() : null;
+        List<T> canonical = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            if (entity == null) {
+                canonical.add(null);
+                continue;
+            }
+            long key = this.keyOf.applyAsLong(entity);
+            T cached = this.entities.get(key);
+            if (cached != null) {
+                canonical.add(cached);
+            } else {
+                if (current) {
+                    this.entities.put(key, entity);
+                }
+                canonical.add(entity);
+            }
+            if (keys != null) {
+                keys.add(key);
+            }
+        }
+        if (keys != null) {
+            // Entities which are not in the table any more.
+            this.entities.keySet().retainAll(keys);
+            this.complete = entities.size() <= this.maxSize;
+        }
+        return canonical;
+    }
+
+    /**
+     * Adds the given written entity to the cache or replaces the cached entity with the same key.
+     *
+     * @param entity the entity which was inserted or updated.
+     */
+    public synchronized void put(T entity) {
+        this.modificationCount++;
+        this.entities.put(this.keyOf.applyAsLong(entity), entity);
+        for (WriteListener<T> listener : this.listeners) {
+            listener.written(entity);
+        }
+    }
+
+    /**
+     * Removes the entity with the given key, e.g. because writing it has failed and the cached state is uncertain.
+     *
+     * @param key the primary key of the entity.
+     */
+    public synchronized void invalidate(long key) {
+        this.modificationCount++;
+        this.entities.remove(key);
+        this.complete = false;
+        for (WriteListener<T> listener : this.listeners) {
+            listener.invalidated();
+        }
+    }
+
+    /**
+     * Removes the deleted entity with the given key and clears all dependent caches.
+     *
+     * @param key the primary key of the deleted entity.
+     */
+    public synchronized void delete(long key) {
+        this.modificationCount++;
+        this.entities.remove(key);
+        for (EntityCache<?> dependent : this.dependents) {
+            dependent.clear();
+        }
+        for (WriteListener<T> listener : this.listeners) {
+            listener.deleted(key);
+        }
+    }
+
+    /**
+     * Removes all entities from the cache and clears all dependent caches.
+     */
+    public synchronized void clear() {
+        this.modificationCount++;
+        this.entities.clear();
+        this.complete = false;
+        for (EntityCache<?> dependent : this.dependents) {
+            dependent.clear();
+        }
+        for (WriteListener<T> listener : this.listeners) {
+            listener.invalidated();
+        }
+    }
+
+    /**
+     * Returns the number of reads which were served from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of reads which had to go to the database.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of currently cached entities.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized int size() {
+        return this.entities.size();
+    }
+
+    /**
+     * Returns the maximum number of cached entities.
+     *
+     * @return the maximum size of the cache.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long reads = this.hits + this.misses;
+        return this.name + ": " + this.entities.size() + "/" + this.maxSize + " Einträge, " +
+                this.hits + " Treffer, " + this.misses + " Fehlgriffe" +
+                (reads == 0 ? "" : String.format(" (%.1f %% Trefferquote)", 100.0 * this.hits / reads));
+    }
+
+    /**
+     * Listener for the writes passing through a cache. The methods are called while the cache is locked, so they
+     * must not access the cache or the database.
+     *
+     * @param <T> the type of the cached entities.
+     */
+    public interface WriteListener<T> {
+
+        /**
+         * Called after an entity has been inserted or updated.
+         *
+         * @param entity the written entity.
+         */
+        void written(T entity);
+
+        /**
+         * Called after an entity has been deleted.
+         *
+         * @param key the primary key of the deleted entity.
+         */
+        void deleted(long key);
+
+        /**
+         * Called if the state of one or all entities is uncertain, e.g. after a failed write or a rollback.
+         */
+        void invalidated();
+    }
+}
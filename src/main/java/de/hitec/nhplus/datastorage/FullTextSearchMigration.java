@@ -0,0 +1,52 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the full-text indexes <code>treatment_fts</code> and <code>treatment_archive_fts</code> over the description
+ * and the remark of treatments and archived treatments.
+ * <p>
+ * The indexes are FTS5 tables with external content: they store only the index, the text itself stays in the
+ * treatment tables. Triggers on the treatment tables keep the indexes up to date, and the indexes are rebuilt from
+ * the existing rows once. Umlauts and accents are folded, so "Wundversorgung" and "wundversörgung" find the same
+ * rows; prefixes of two and three characters are indexed for prefix searches.
+ */
+class FullTextSearchMigration implements Migration {
+
+    @Override
+    public String getDescription() {
+        return "Volltextsuche in Behandlungen und archivierten Behandlungen";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"treatment", "treatment_archive"}) {
+                String index = table + "_fts";
+                statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS " + index + " USING fts5(" +
+                        "description, remark, content='" + table + "', content_rowid='tid', " +
+                        "tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+                statement.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_insert AFTER INSERT ON " + table + " " +
+                        "BEGIN " +
+                        "    INSERT INTO " + index + " (rowid, description, remark) " +
+                        "    VALUES (new.tid, new.description, new.remark); " +
+                        "END");
+                statement.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_delete AFTER DELETE ON " + table + " " +
+                        "BEGIN " +
+                        "    INSERT INTO " + index + " (" + index + ", rowid, description, remark) " +
+                        "    VALUES ('delete', old.tid, old.description, old.remark); " +
+                        "END");
+                statement.execute("CREATE TRIGGER IF NOT EXISTS " + index + "_update AFTER UPDATE ON " + table + " " +
+                        "BEGIN " +
+                        "    INSERT INTO " + index + " (" + index + ", rowid, description, remark) " +
+                        "    VALUES ('delete', old.tid, old.description, old.remark); " +
+                        "    INSERT INTO " + index + " (rowid, description, remark) " +
+                        "    VALUES (new.tid, new.description, new.remark); " +
+                        "END");
+                statement.execute("INSERT INTO " + index + " (" + index + ") VALUES ('rebuild')");
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Changes the storage format of all dates to epoch days and of all times to minutes of the day, both as
+ * <code>INTEGER</code> columns instead of <code>TEXT</code>. The DAOs map these columns directly to
+ * {@link java.time.LocalDate} and {@link java.time.LocalTime} without parsing.
+ * <p>
+ * SQLite cannot change the type of a column, so each table is rebuilt: the rows are copied into a new table while
+ * being converted, the old table is dropped and the new one renamed. The AUTOINCREMENT counter of the old table is
+ * kept, so ids of deleted rows are not handed out again. Indexes and triggers are recreated afterwards. A table
+ * whose columns already are <code>INTEGER</code> is left as it is.
+ */
+class IntegerDatesMigration implements Migration {
+
+    private static final String PATIENT_COLUMNS = "(" +
+            "   pid INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "   firstname TEXT NOT NULL, " +
+            "   surname TEXT NOT NULL, " +
+            "   dateOfBirth INTEGER NOT NULL, " +
+            "   carelevel TEXT NOT NULL, " +
+            "   roomnumber TEXT NOT NULL, " +
+            "   status INTEGER NOT NULL";
+
+    @Override
+    public String getDescription() {
+        return "Datums- und Zeitangaben als Ganzzahlen";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        if (isText(connection, "patient", "dateOfBirth")) {
+            rebuild(connection, "patient",
+                    PATIENT_COLUMNS + ")",
+                    "pid, firstname, surname, " + epochDay("dateOfBirth") + ", carelevel, roomnumber, " +
+                            // Older versions stored the status label instead of the flag.
+                            "CASE status WHEN 'Archived' THEN 1 WHEN 'Active' THEN 0 ELSE status END");
+        }
+        if (isText(connection, "patient_archive", "dateOfBirth")) {
+            rebuild(connection, "patient_archive",
+                    PATIENT_COLUMNS + ", dateOfDelete INTEGER)",
+                    "pid, firstname, surname, " + epochDay("dateOfBirth") + ", carelevel, roomnumber, status, " +
+                            epochDay("dateOfDelete"));
+        }
+        if (isText(connection, "treatment", "treatment_date")) {
+            rebuild(connection, "treatment",
+                    "(" +
+                            "   tid INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "   pid INTEGER NOT NULL, " +
+                            "   treatment_date INTEGER NOT NULL, " +
+                            "   begin INTEGER NOT NULL, " +
+                            "   end INTEGER NOT NULL, " +
+                            "   description TEXT NOT NULL, " +
+                            "   remark TEXT NOT NULL," +
+                            "   status INTEGER NOT NULL, " +
+                            "   FOREIGN KEY (pid) REFERENCES patient (pid) ON DELETE CASCADE " +
+                            ")",
+                    "tid, pid, " + epochDay("treatment_date") + ", " + minuteOfDay("begin") + ", " +
+                            minuteOfDay("end") + ", description, remark, status");
+        }
+        if (isText(connection, "treatment_archive", "treatment_date")) {
+            rebuild(connection, "treatment_archive",
+                    "(" +
+                            "   tid INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "   pid INTEGER NOT NULL, " +
+                            "   treatment_date INTEGER NOT NULL, " +
+                            "   begin INTEGER NOT NULL, " +
+                            "   end INTEGER NOT NULL, " +
+                            "   description TEXT NOT NULL, " +
+                            "   remark TEXT NOT NULL, " +
+                            "   status INTEGER NOT NULL, " +
+                            "   delete_date INTEGER, " +
+                            "   comment TEXT NOT NULL" +
+                            ")",
+                    "tid, pid, " + epochDay("treatment_date") + ", " + minuteOfDay("begin") + ", " +
+                            minuteOfDay("end") + ", description, remark, status, " + epochDay("delete_date") +
+                            ", comment");
+        }
+
+        new AddIndexesMigration().apply(connection);
+        try (Statement statement = connection.createStatement()) {
+            // Both archives used to share one trigger name, so only the first archive was protected.
+            statement.execute("DROP TRIGGER IF EXISTS prevent_archive_changes");
+            for (String archive : new String[]{"treatment_archive", "patient_archive"}) {
+                statement.execute("CREATE TRIGGER IF NOT EXISTS prevent_" + archive + "_changes " +
+                        "BEFORE UPDATE ON " + archive + " " +
+                        "FOR EACH ROW " +
+                        "BEGIN " +
+                        "    SELECT RAISE(ABORT, 'Archivierte Daten sind unveränderlich'); " +
+                        "END");
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given column still has the type <code>TEXT</code>.
+     *
+     * @param connection The writer connection.
+     * @param table      The table of the column.
+     * @param column     The column to check.
+     * @return {@code true} if the column exists and is declared as <code>TEXT</code>.
+     * @throws SQLException If a database access error occurs.
+     */
+    private static boolean isText(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (result.next()) {
+                if (result.getString("name").equalsIgnoreCase(column)) {
+                    return result.getString("type").equalsIgnoreCase("TEXT");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds a table with new column definitions.
+     *
+     * @param connection The writer connection.
+     * @param table      The table to rebuild.
+     * @param columns    The column definitions of the new table, in parentheses.
+     * @param select     The select list converting a row of the old table into a row of the new table.
+     * @throws SQLException If a database access error occurs.
+     */
+    static void rebuild(Connection connection, String table, String columns, String select) throws SQLException {
+        String newTable = table + "_new";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + newTable + " " + columns);
+            statement.execute("INSERT INTO " + newTable + " SELECT " + select + " FROM " + table);
+            statement.execute("DELETE FROM sqlite_sequence WHERE name = '" + newTable + "'");
+            statement.execute("INSERT INTO sqlite_sequence (name, seq) SELECT '" + newTable + "', " +
+                    "MAX(IFNULL((SELECT seq FROM sqlite_sequence WHERE name = '" + table + "'), 0), " +
+                    "IFNULL((SELECT MAX(rowid) FROM " + newTable + "), 0))");
+            statement.execute("DROP TABLE " + table);
+            statement.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+        }
+    }
+
+    /**
+     * Returns the SQL converting an ISO date column (<code>yyyy-MM-dd</code>) to epoch days.
+     *
+     * @param column The column to convert.
+     * @return The SQL expression, which is <code>NULL</code> for <code>NULL</code> values.
+     */
+    private static String epochDay(String column) {
+        return "CAST(julianday(" + column + ") - 2440587.5 AS INTEGER)";
+    }
+
+    /**
+     * Returns the SQL converting a time column (<code>HH:mm</code>) to minutes of the day.
+     *
+     * @param column The column to convert.
+     * @return The SQL expression.
+     */
+    private static String minuteOfDay(String column) {
+        return "(CAST(substr(" + column + ", 1, 2) AS INTEGER) * 60 + CAST(substr(" + column + ", 4, 2) AS INTEGER))";
+    }
+}
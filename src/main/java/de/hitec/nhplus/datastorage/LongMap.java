@@ -0,0 +1,206 @@
+package de.hitec.nhplus.datastorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash map with primitive <code>long</code> keys, e.g. the ids of patients or treatments.
+ * <p>
+ * Unlike a <code>HashMap&lt;Long, V&gt;</code> the keys are neither boxed nor wrapped in entry objects: keys and
+ * values are kept in two arrays with open addressing and linear probing. The map is not thread-safe.
+ *
+ * @param <V> the type of the values.
+ */
+class LongMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private boolean hasFreeKey;
+    private V freeKeyValue;
+
+    /**
+     * Constructs an empty map.
+     */
+    LongMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the value of the given key.
+     *
+     * @param key the key.
+     * @return the value, or {@code null} if the key is not contained.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == FREE) {
+            return this.hasFreeKey ? this.freeKeyValue : null;
+        }
+        int index = indexOf(key);
+        return this.keys[index] == key ? (V) this.values[index] : null;
+    }
+
+    /**
+     * Associates the given value with the given key.
+     *
+     * @param key   the key.
+     * @param value the value, not {@code null}.
+     * @return the previous value of the key, or {@code null} if the key was not contained.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == FREE) {
+            V previous = this.freeKeyValue;
+            if (!this.hasFreeKey) {
+                this.hasFreeKey = true;
+                this.size++;
+            }
+            this.freeKeyValue = value;
+            return previous;
+        }
+        int index = indexOf(key);
+        if (this.keys[index] == key) {
+            V previous = (V) this.values[index];
+            this.values[index] = value;
+            return previous;
+        }
+        this.keys[index] = key;
+        this.values[index] = value;
+        this.size++;
+        // The table is kept at most half full, so probing sequences stay short.
+        if (this.size * 2 > this.keys.length) {
+            resize(this.keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given key.
+     *
+     * @param key the key.
+     * @return the removed value, or {@code null} if the key was not contained.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == FREE) {
+            if (!this.hasFreeKey) {
+                return null;
+            }
+            V previous = this.freeKeyValue;
+            this.hasFreeKey = false;
+            this.freeKeyValue = null;
+            this.size--;
+            return previous;
+        }
+        int index = indexOf(key);
+        if (this.keys[index] != key) {
+            return null;
+        }
+        V previous = (V) this.values[index];
+        shiftBack(index);
+        this.size--;
+        return previous;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the size of the map.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns all values, in no particular order.
+     *
+     * @return a new list with the values.
+     */
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        List<V> result = new ArrayList<>(this.size);
+        if (this.hasFreeKey) {
+            result.add(this.freeKeyValue);
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != FREE) {
+                result.add((V) this.values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the slot of the given key, or the free slot where it would be inserted.
+     *
+     * @param key the key, not {@link #FREE}.
+     * @return the index of the slot.
+     */
+    private int indexOf(long key) {
+        int mask = this.keys.length - 1;
+        int index = hash(key) & mask;
+        while (this.keys[index] != FREE && this.keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Empties the given slot and moves following entries of the probing sequence back, so every remaining key can
+     * still be found without tombstones.
+     *
+     * @param index the slot to empty.
+     */
+    private void shiftBack(int index) {
+        int mask = this.keys.length - 1;
+        int free = index;
+        int next = (free + 1) & mask;
+        while (this.keys[next] != FREE) {
+            int home = hash(this.keys[next]) & mask;
+            // The entry may move into the free slot if its home slot is not between the free slot and itself.
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                this.keys[free] = this.keys[next];
+                this.values[free] = this.values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.keys[free] = FREE;
+        this.values[free] = null;
+    }
+
+    /**
+     * Moves all entries into tables of the given capacity.
+     *
+     * @param capacity the new capacity, a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int index = indexOf(oldKeys[i]);
+                this.keys[index] = oldKeys[i];
+                this.values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a key over the table, so regular patterns of ids do not cluster.
+     *
+     * @param key the key.
+     * @return the hash of the key.
+     */
+    static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
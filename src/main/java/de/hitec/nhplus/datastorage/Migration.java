@@ -0,0 +1,29 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A single step of the database schema. Migrations are applied in order by {@link SchemaMigrator}, each one
+ * within its own transaction.
+ * <p>
+ * A migration must be idempotent, e.g. by using <code>IF NOT EXISTS</code>, so that it also succeeds on databases
+ * which already contain parts of its changes.
+ */
+public interface Migration {
+
+    /**
+     * Returns a short description of the migration, which is printed when it is applied.
+     *
+     * @return The description of the migration.
+     */
+    String getDescription();
+
+    /**
+     * Applies the migration to the database.
+     *
+     * @param connection The writer connection, within a running transaction.
+     * @throws SQLException If a statement of the migration fails. The whole migration is rolled back in this case.
+     */
+    void apply(Connection connection) throws SQLException;
+}
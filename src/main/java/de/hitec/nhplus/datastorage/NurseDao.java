@@ -6,10 +6,27 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public class NurseDao extends DaoImp<Nurse> {
 
+    private static final RowMapper<Nurse> MAPPER = new RowMapper<>(row -> new Nurse(
+            row.getLong("id"),
+            row.getString("firstname"),
+            row.getString("surname"),
+            row.getString("phoneNumber"),
+            row.getString("password")),
+            "id", "firstname", "surname", "phoneNumber", "password");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("id", "firstname", "surname", "phoneNumber");
+
+    private static final List<UpdateColumn<Nurse>> UPDATE_COLUMNS = List.of(
+            new UpdateColumn<>("firstName", "firstname", (statement, index, nurse) -> statement.setString(index, nurse.getFirstName())),
+            new UpdateColumn<>("surname", "surname", (statement, index, nurse) -> statement.setString(index, nurse.getSurname())),
+            new UpdateColumn<>("phoneNumber", "phoneNumber", (statement, index, nurse) -> statement.setString(index, nurse.getPhoneNumber())),
+            new UpdateColumn<>("password", "password", (statement, index, nurse) -> statement.setString(index, nurse.getPassword())));
+
     /**
      * The constructor initiates an object of <code>NurseDao</code> and passes the connection to its super class.
      *
@@ -17,6 +34,29 @@ public class NurseDao extends DaoImp<Nurse> {
      */
     public NurseDao(Connection connection) { super(connection); }
 
+    /**
+     * The constructor initiates an object of <code>NurseDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public NurseDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
+    /**
+     * The constructor initiates an object of <code>NurseDao</code> which additionally serves reads from the given
+     * cache and keeps it up to date.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     * @param cache          Cache of <code>Nurse</code> objects shared by all DAOs of this type.
+     */
+    public NurseDao(Connection connection, Connection readConnection, EntityCache<Nurse> cache) {
+        super(connection, readConnection, cache);
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to persist the given object of <code>Nurse</code>.
      *
@@ -28,7 +68,7 @@ public class NurseDao extends DaoImp<Nurse> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO nurse (firstname, surname, phoneNumber, password) " + "VALUES (?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setString(1, nurse.getFirstName());
             preparedStatement.setString(2, nurse.getSurname());
             preparedStatement.setString(3, nurse.getPhoneNumber());
@@ -49,8 +89,8 @@ public class NurseDao extends DaoImp<Nurse> {
     protected PreparedStatement getReadByIDStatement(long nid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM nurse WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM nurse WHERE id = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, nid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -58,23 +98,6 @@ public class NurseDao extends DaoImp<Nurse> {
         return preparedStatement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of one nurse to an object of <code>Nurse</code>.
-     *
-     * @param result ResultSet with a single row. Columns will be mapped to an object of class <code>Nurse</code>.
-     * @return Object of class <code>Nurse</code> with the data from the resultSet.
-     */
-    @Override
-    protected Nurse getInstanceFromResultSet(ResultSet result) throws SQLException {
-        return new Nurse(
-            result.getInt(1),
-            result.getString(2),
-            result.getString(3),
-            result.getString(4),
-            result.getString(5)
-        );
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to query all nurses.
      *
@@ -84,31 +107,14 @@ public class NurseDao extends DaoImp<Nurse> {
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM nurse";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM nurse";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return statement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of all nurses to an <code>ArrayList</code> of <code>Nurse</code> objects.
-     *
-     * @param result ResultSet with all rows. The Columns will be mapped to objects of class <code>Nurse</code>.
-     * @return <code>ArrayList</code> with objects of class <code>Nurse</code> of all rows in the
-     * <code>ResultSet</code>.
-     */
-    @Override
-    protected ArrayList<Nurse> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Nurse> list = new ArrayList<>();
-        while (result.next()) {
-            Nurse nurse = new Nurse(result.getInt(1), result.getString(2), result.getString(3), result.getString(4), result.getString(5));
-            list.add(nurse);
-        }
-        return list;
-    }
-
 
     /**
      * Finds a nurse by their first name.
@@ -118,16 +124,20 @@ public class NurseDao extends DaoImp<Nurse> {
      */
     public Nurse findByFirstName(String firstName) {
         Nurse nurse = null;
+        PreparedStatement stmt = null;
         try {
-            String sql = "SELECT * FROM nurse WHERE firstname = ?";
-            PreparedStatement stmt = connection.prepareStatement(sql);
+            String sql = "SELECT " + MAPPER.getColumnList() + " FROM nurse WHERE firstname = ?";
+            stmt = prepareStatement(this.readConnection, sql);
             stmt.setString(1, firstName);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                nurse = getInstanceFromResultSet(rs);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    nurse = MAPPER.map(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            releaseStatement(stmt);
         }
         return nurse;
     }
@@ -143,18 +153,7 @@ public class NurseDao extends DaoImp<Nurse> {
     protected PreparedStatement getUpdateStatement(Nurse nurse) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL =
-                "UPDATE nurse SET " +
-                    "firstname = ?, " +
-                    "surname = ?, " +
-                    "phoneNumber = ? " +
-                    "password = ? " +
-                    "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setString(1, nurse.getFirstName());
-            preparedStatement.setString(2, nurse.getSurname());
-            preparedStatement.setString(3, nurse.getPhoneNumber());
-            preparedStatement.setString(4, nurse.getPassword());
+            preparedStatement = prepareUpdate(nurse, null);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -172,7 +171,7 @@ public class NurseDao extends DaoImp<Nurse> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "DELETE FROM nurse WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, nid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -192,12 +191,84 @@ public class NurseDao extends DaoImp<Nurse> {
     protected PreparedStatement getExportStatement(long nid) {
         PreparedStatement preparedStatement = null;
         try{
-            final String SQL = "SELECT * FROM nurse WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM nurse WHERE id = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, nid);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return preparedStatement;
     }
+
+    /**
+     * Returns the primary key of the given nurse.
+     *
+     * @param nurse Object of <code>Nurse</code>.
+     * @return The id of the nurse.
+     */
+    @Override
+    protected long getKey(Nurse nurse) {
+        return nurse.getNid();
+    }
+
+    /**
+     * Sets the key generated for a newly created nurse.
+     *
+     * @param nurse Object of <code>Nurse</code> which was created.
+     * @param key   The generated id.
+     */
+    @Override
+    protected void setKey(Nurse nurse, long key) {
+        nurse.setNid(key);
+    }
+
+    /**
+     * Returns the mapper for the columns of the <code>nurse</code> table.
+     *
+     * @return Mapper creating <code>Nurse</code> objects.
+     */
+    @Override
+    protected RowMapper<Nurse> getRowMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>nurse</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "nurse";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>id</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "id";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
+    }
+
+    /**
+     * Returns the columns written when a nurse is updated, and the fields they are written from.
+     *
+     * @return List of updatable columns.
+     */
+    @Override
+    protected List<UpdateColumn<Nurse>> getUpdateColumns() {
+        return UPDATE_COLUMNS;
+    }
 }
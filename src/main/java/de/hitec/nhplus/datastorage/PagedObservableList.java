@@ -0,0 +1,331 @@
+package de.hitec.nhplus.datastorage;
+
+import javafx.animation.PauseTransition;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only list of all rows of a table, which reads the rows from the database only when a {@link TableView} shows
+ * them.
+ * <p>
+ * The list knows its size from a <code>COUNT(*)</code>, but holds at most {@link #MAX_CACHED_PAGES} pages of
+ * {@link #PAGE_SIZE} rows, the least recently shown page is dropped first. A <code>TableView</code> only asks for the
+ * rows it renders; if such a row is not loaded yet, {@link #get(int)} returns {@code null}, the table shows an empty
+ * row and the page is read in the background with {@link AsyncDao}. Once the page has arrived, the list reports its
+ * rows as replaced and the table renders them. Opening a view therefore costs one count and one page, no matter how
+ * many rows the table has.
+ * <p>
+ * The order of the rows is the order of a database column, so sorting does not require all rows either:
+ * {@link #bindSorting(TableView, Map)} lets the table sort by its columns on the database. Changes to the table are
+ * only shown after {@link #refresh()}. The list must only be used on the JavaFX application thread.
+ *
+ * @param <T> the type of the rows.
+ */
+public class PagedObservableList<T> extends ObservableListBase<T> {
+
+    public static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 10;
+    private static final long FIRST_RETRY_MILLIS = 500;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    /**
+     * Reads the rows at a position of a sort order, e.g. {@link Dao#readPage(String, boolean, long, int)}.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    public interface PageReader<T> {
+        List<T> read(String sortColumn, boolean descending, long offset, int limit) throws SQLException;
+    }
+
+    private final AsyncDao.DaoCall<Long> counter;
+    private final PageReader<T> reader;
+    private final String defaultSortColumn;
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+    private final Set<Integer> waiting = new HashSet<>();
+    private final Map<Integer, Integer> failures = new HashMap<>();
+    private String sortColumn;
+    private boolean descending;
+    private int size;
+    private long generation;
+
+    /**
+     * Constructs an empty list. The rows are counted by the first call of {@link #refresh()}.
+     *
+     * @param counter           counts the rows, e.g. {@link Dao#count()}.
+     * @param reader            reads the rows of a page.
+     * @param defaultSortColumn the column to sort by as long as the table is not sorted by one of its columns,
+     *                          usually the primary key.
+     */
+    public PagedObservableList(AsyncDao.DaoCall<Long> counter, PageReader<T> reader, String defaultSortColumn) {
+        this.counter = counter;
+        this.reader = reader;
+        this.defaultSortColumn = defaultSortColumn;
+        this.sortColumn = defaultSortColumn;
+    }
+
+    /**
+     * Constructs an empty list of all entities of the given DAO.
+     *
+     * @param dao               the DAO to read the entities with.
+     * @param defaultSortColumn the column to sort by as long as the table is not sorted by one of its columns.
+     * @param <T>               the type of the entities.
+     * @return the list, which is filled by the first call of {@link #refresh()}.
+     */
+    public static <T> PagedObservableList<T> of(Dao<T> dao, String defaultSortColumn) {
+        return new PagedObservableList<>(dao::count, dao::readPage, defaultSortColumn);
+    }
+
+    /**
+     * Returns the row at the given position.
+     *
+     * @param index the position of the row.
+     * @return the row, or {@code null} if its page is not loaded yet. The page is then read in the background.
+     */
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, this.size);
+        int page = index / PAGE_SIZE;
+        List<T> rows = this.pages.get(page);
+        if (rows == null) {
+            load(page);
+            return null;
+        }
+        int position = index % PAGE_SIZE;
+        return position < rows.size() ? rows.get(position) : null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Looks for the given row in the loaded pages only. The selection model of a <code>TableView</code> looks up the
+     * selected row after every change; searching all pages would read the whole table.
+     *
+     * @param object the row to look for.
+     * @return the position of the row, or -1 if it is not in a loaded page.
+     */
+    @Override
+    public int indexOf(Object object) {
+        for (Map.Entry<Integer, List<T>> page : this.pages.entrySet()) {
+            int position = page.getValue().indexOf(object);
+            if (position >= 0) {
+                return page.getKey() * PAGE_SIZE + position;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object object) {
+        return indexOf(object);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) >= 0;
+    }
+
+    /**
+     * Drops all loaded pages and counts the rows again, e.g. after rows have been added or deleted. The table keeps
+     * its scroll position and reads the rows it shows again.
+     */
+    public void refresh() {
+        long refreshGeneration = ++this.generation;
+        this.pages.clear();
+        this.loading.clear();
+        this.waiting.clear();
+        this.failures.clear();
+        AsyncDao.supply(this.counter)
+                .thenAccept(count -> {
+                    if (refreshGeneration == this.generation) {
+                        resize((int) Math.min(count, Integer.MAX_VALUE));
+                    }
+                })
+                .exceptionally(AsyncDao::logFailure);
+    }
+
+    /**
+     * Shows a newly created row without reading the table again. In the default order the new row, which has the
+     * highest key, is the last one, so it is appended to the last page. In any other order its position is unknown
+     * and the rows are counted and read again, see {@link #refresh()}.
+     *
+     * @param row the persisted row.
+     */
+    public void append(T row) {
+        if (!this.sortColumn.equals(this.defaultSortColumn) || this.descending) {
+            refresh();
+            return;
+        }
+        int index = this.size++;
+        int page = index / PAGE_SIZE;
+        List<T> rows = this.pages.get(page);
+        if (rows != null && rows.size() == index % PAGE_SIZE) {
+            rows = new ArrayList<>(rows);
+            rows.add(row);
+            this.pages.put(page, rows);
+        } else if (rows == null && index % PAGE_SIZE == 0) {
+            this.pages.put(page, new ArrayList<>(List.of(row)));
+        } else {
+            this.pages.remove(page);
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * Orders the rows by the given column. Reads the rows again if the order has changed.
+     *
+     * @param sortColumn the column to sort by, one of the sortable columns of the DAO.
+     * @param descending {@code true} for descending order.
+     */
+    public void sort(String sortColumn, boolean descending) {
+        if (sortColumn.equals(this.sortColumn) && descending == this.descending) {
+            return;
+        }
+        this.sortColumn = sortColumn;
+        this.descending = descending;
+        refresh();
+    }
+
+    /**
+     * Lets the given table sort this list on the database. Only the given columns can be sorted; if the table is
+     * sorted by several columns, the first one decides. While the table shows another list, e.g. search results, it
+     * sorts that list in memory as usual.
+     *
+     * @param tableView   the table showing this list.
+     * @param sortColumns the sortable columns of the table and the database columns they are sorted by.
+     */
+    public void bindSorting(TableView<T> tableView, Map<TableColumn<T, ?>, String> sortColumns) {
+        for (TableColumn<T, ?> column : tableView.getColumns()) {
+            column.setSortable(sortColumns.containsKey(column));
+        }
+        tableView.setSortPolicy(table -> {
+            if (table.getItems() != this) {
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            List<TableColumn<T, ?>> sortOrder = table.getSortOrder();
+            if (sortOrder.isEmpty()) {
+                sort(this.defaultSortColumn, false);
+            } else {
+                TableColumn<T, ?> column = sortOrder.get(0);
+                sort(sortColumns.get(column), column.getSortType() == TableColumn.SortType.DESCENDING);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Reads a page in the background, unless it is already being read or waits for its next attempt. Pages which
+     * arrive after the list has been refreshed or sorted again are discarded. A page which cannot be read is tried
+     * again after a delay, which doubles with every failure up to {@link #MAX_RETRY_MILLIS}, so a broken connection
+     * does not cause a query on every layout pass.
+     *
+     * @param page the number of the page.
+     */
+    private void load(int page) {
+        if (this.waiting.contains(page) || !this.loading.add(page)) {
+            return;
+        }
+        long loadGeneration = this.generation;
+        String column = this.sortColumn;
+        boolean descendingOrder = this.descending;
+        AsyncDao.supply(() -> this.reader.read(column, descendingOrder, (long) page * PAGE_SIZE, PAGE_SIZE))
+                .thenAccept(rows -> {
+                    if (loadGeneration != this.generation) {
+                        return;
+                    }
+                    this.loading.remove(page);
+                    this.failures.remove(page);
+                    this.pages.put(page, rows);
+                    fireReplaced(page);
+                })
+                .exceptionally(throwable -> {
+                    if (loadGeneration == this.generation) {
+                        this.loading.remove(page);
+                        retryLater(page);
+                    }
+                    return AsyncDao.logFailure(throwable);
+                });
+    }
+
+    /**
+     * Lets a page which could not be read wait for its next attempt. Once the delay has passed, the rows of the page
+     * are reported as replaced; if the table still shows them, it asks for them again and the page is read.
+     *
+     * @param page the number of the page.
+     */
+    private void retryLater(int page) {
+        int attempts = this.failures.merge(page, 1, Integer::sum);
+        long delay = Math.min(MAX_RETRY_MILLIS, FIRST_RETRY_MILLIS << Math.min(attempts - 1, 16));
+        long retryGeneration = this.generation;
+        this.waiting.add(page);
+        PauseTransition pause = new PauseTransition(Duration.millis(delay));
+        pause.setOnFinished(event -> {
+            if (retryGeneration == this.generation) {
+                this.waiting.remove(page);
+                fireReplaced(page);
+            }
+        });
+        pause.play();
+    }
+
+    /**
+     * Reports the rows of a page as replaced, so the table renders them again.
+     *
+     * @param page the number of the page.
+     */
+    private void fireReplaced(int page) {
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, this.size);
+        if (from < to) {
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }
+    }
+
+    /**
+     * Changes the size of the list after the rows have been counted again. All rows are reported as replaced, so the
+     * table reads the rows it shows again; rows beyond the old or the new end are reported as added or removed.
+     *
+     * @param newSize the number of rows.
+     */
+    private void resize(int newSize) {
+        int oldSize = this.size;
+        this.size = newSize;
+        int common = Math.min(oldSize, newSize);
+        beginChange();
+        if (common > 0) {
+            nextReplace(0, common, Collections.nCopies(common, null));
+        }
+        if (newSize > oldSize) {
+            nextAdd(oldSize, newSize);
+        } else if (newSize < oldSize) {
+            nextRemove(newSize, Collections.nCopies(oldSize - newSize, null));
+        }
+        endChange();
+    }
+}
@@ -1,11 +1,10 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Patient;
-import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.*;
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Implements the Interface <code>DaoImp</code>. Overrides methods to generate specific <code>PreparedStatements</code>,
@@ -13,6 +12,26 @@ import java.util.ArrayList;
  */
 public class PatientDao extends DaoImp<Patient> {
 
+    private static final RowMapper<Patient> MAPPER = new RowMapper<>(row -> new Patient(
+            row.getLong("pid"),
+            row.getString("firstname"),
+            row.getString("surname"),
+            row.getDate("dateOfBirth"),
+            row.getString("carelevel"),
+            row.getString("roomnumber"),
+            row.getBoolean("status")),
+            "pid", "firstname", "surname", "dateOfBirth", "carelevel", "roomnumber", "status");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("pid", "firstname", "surname", "dateOfBirth", "carelevel", "roomnumber", "status");
+
+    private static final List<UpdateColumn<Patient>> UPDATE_COLUMNS = List.of(
+            new UpdateColumn<>("firstName", "firstname", (statement, index, patient) -> statement.setString(index, patient.getFirstName())),
+            new UpdateColumn<>("surname", "surname", (statement, index, patient) -> statement.setString(index, patient.getSurname())),
+            new UpdateColumn<>("dateOfBirth", "dateOfBirth", (statement, index, patient) -> setDate(statement, index, patient.getLocalDateOfBirth())),
+            new UpdateColumn<>("careLevel", "carelevel", (statement, index, patient) -> statement.setString(index, patient.getCareLevel())),
+            new UpdateColumn<>("roomNumber", "roomnumber", (statement, index, patient) -> statement.setString(index, patient.getRoomNumber())),
+            new UpdateColumn<>("status", "status", (statement, index, patient) -> statement.setBoolean(index, patient.getStatusBool())));
+
     /**
      * The constructor initiates an object of <code>PatientDao</code> and passes the connection to its super class.
      *
@@ -22,6 +41,29 @@ public class PatientDao extends DaoImp<Patient> {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>PatientDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public PatientDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
+    /**
+     * The constructor initiates an object of <code>PatientDao</code> which additionally serves reads from the given
+     * cache and keeps it up to date.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     * @param cache          Cache of <code>Patient</code> objects shared by all DAOs of this type.
+     */
+    public PatientDao(Connection connection, Connection readConnection, EntityCache<Patient> cache) {
+        super(connection, readConnection, cache);
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to persist the given object of <code>Patient</code>.
      *
@@ -34,13 +76,13 @@ public class PatientDao extends DaoImp<Patient> {
         try {
             final String SQL = "INSERT INTO patient (firstname, surname, dateOfBirth, carelevel, roomnumber, status) " +
                     "VALUES (?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setString(1, patient.getFirstName());
             preparedStatement.setString(2, patient.getSurname());
-            preparedStatement.setString(3, patient.getDateOfBirth());
+            setDate(preparedStatement, 3, patient.getLocalDateOfBirth());
             preparedStatement.setString(4, patient.getCareLevel());
             preparedStatement.setString(5, patient.getRoomNumber());
-            preparedStatement.setString(6, patient.getStatus());
+            preparedStatement.setBoolean(6, patient.getStatusBool());
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -57,8 +99,8 @@ public class PatientDao extends DaoImp<Patient> {
     protected PreparedStatement getReadByIDStatement(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM patient WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -66,24 +108,6 @@ public class PatientDao extends DaoImp<Patient> {
         return preparedStatement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of one patient to an object of <code>Patient</code>.
-     *
-     * @param result ResultSet with a single row. Columns will be mapped to an object of class <code>Patient</code>.
-     * @return Object of class <code>Patient</code> with the data from the resultSet.
-     */
-    @Override
-    protected Patient getInstanceFromResultSet(ResultSet result) throws SQLException {
-        return new Patient(
-                result.getInt(1),
-                result.getString(2),
-                result.getString(3),
-                DateConverter.convertStringToLocalDate(result.getString(4)),
-                result.getString(5),
-                result.getString(6),
-                result.getBoolean(7));
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to query all patients.
      *
@@ -93,34 +117,14 @@ public class PatientDao extends DaoImp<Patient> {
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM patient";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return statement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of all patients to an <code>ArrayList</code> of <code>Patient</code> objects.
-     *
-     * @param result ResultSet with all rows. The Columns will be mapped to objects of class <code>Patient</code>.
-     * @return <code>ArrayList</code> with objects of class <code>Patient</code> of all rows in the
-     * <code>ResultSet</code>.
-     */
-    @Override
-    protected ArrayList<Patient> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Patient> list = new ArrayList<>();
-        while (result.next()) {
-            LocalDate date = DateConverter.convertStringToLocalDate(result.getString(4));
-            Patient patient = new Patient(result.getInt(1), result.getString(2),
-                    result.getString(3), date,
-                    result.getString(5), result.getString(6), result.getBoolean(7));
-            list.add(patient);
-        }
-        return list;
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to update the given patient, identified
      * by the id of the patient (pid).
@@ -132,23 +136,7 @@ public class PatientDao extends DaoImp<Patient> {
     protected PreparedStatement getUpdateStatement(Patient patient) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL =
-                    "UPDATE patient SET " +
-                            "firstname = ?, " +
-                            "surname = ?, " +
-                            "dateOfBirth = ?, " +
-                            "carelevel = ?, " +
-                            "roomnumber = ? " +
-                            "status = ? " +
-                            "WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setString(1, patient.getFirstName());
-            preparedStatement.setString(2, patient.getSurname());
-            preparedStatement.setString(3, patient.getDateOfBirth());
-            preparedStatement.setString(4, patient.getCareLevel());
-            preparedStatement.setString(5, patient.getRoomNumber());
-            preparedStatement.setBoolean(6, patient.getStatusBool());
-            preparedStatement.setLong(7, patient.getPid());
+            preparedStatement = prepareUpdate(patient, null);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -166,7 +154,7 @@ public class PatientDao extends DaoImp<Patient> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "DELETE FROM patient WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -187,12 +175,84 @@ public class PatientDao extends DaoImp<Patient> {
     protected PreparedStatement getExportStatement(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM patient WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM patient WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return preparedStatement;
     }
+
+    /**
+     * Returns the primary key of the given patient.
+     *
+     * @param patient Object of <code>Patient</code>.
+     * @return The id of the patient.
+     */
+    @Override
+    protected long getKey(Patient patient) {
+        return patient.getPid();
+    }
+
+    /**
+     * Sets the key generated for a newly created patient.
+     *
+     * @param patient Object of <code>Patient</code> which was created.
+     * @param key     The generated id.
+     */
+    @Override
+    protected void setKey(Patient patient, long key) {
+        patient.setPid(key);
+    }
+
+    /**
+     * Returns the mapper for the columns of the <code>patient</code> table.
+     *
+     * @return Mapper creating <code>Patient</code> objects.
+     */
+    @Override
+    protected RowMapper<Patient> getRowMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>patient</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "patient";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>pid</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "pid";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
+    }
+
+    /**
+     * Returns the columns written when a patient is updated, and the fields they are written from.
+     *
+     * @return List of updatable columns.
+     */
+    @Override
+    protected List<UpdateColumn<Patient>> getUpdateColumns() {
+        return UPDATE_COLUMNS;
+    }
 }
@@ -0,0 +1,260 @@
+package de.hitec.nhplus.datastorage;
+
+import de.hitec.nhplus.model.Patient;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index of the patients for looking them up by name while typing.
+ * <p>
+ * Every patient is indexed under "surname firstname" and "firstname surname", normalized to lower case without
+ * umlauts and accents, so "mull" finds "Müller, Hans" as well as "hans m". The keys are kept in a sorted array; a
+ * lookup finds the first key with the typed prefix by binary search and reads the following keys until the prefix
+ * no longer matches, so it only depends on the number of hits, not on the number of patients.
+ * <p>
+ * The index is built from {@link PatientDao#readAll()} on the first lookup and kept up to date as a
+ * {@link EntityCache.WriteListener} of the patient cache. If the state of the patients becomes uncertain, e.g. after
+ * a rollback, the index is built again on the next lookup. The arrays are never changed once published, so lookups
+ * do not block each other or the writers.
+ */
+public class PatientIndex implements EntityCache.WriteListener<Patient> {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Snapshot EMPTY = new Snapshot(new String[0], new Patient[0]);
+
+    private volatile Snapshot snapshot;
+    private long generation;
+
+    /**
+     * Constructs an empty index, which is built from the database on the first lookup.
+     */
+    public PatientIndex() {
+    }
+
+    /**
+     * Constructs an index of the given patients without reading the database, e.g. for tests.
+     *
+     * @param patients The patients to index.
+     */
+    PatientIndex(List<Patient> patients) {
+        this.snapshot = build(patients);
+    }
+
+    /**
+     * Keys and patients of the index, sorted by key.
+     */
+    private record Snapshot(String[] keys, Patient[] patients) {
+    }
+
+    /**
+     * A key of a patient, used while building the index.
+     */
+    private record Entry(String key, Patient patient) {
+    }
+
+    /**
+     * Returns the patients whose surname or first name starts with the given text. Several words are matched
+     * against surname and first name in both orders.
+     *
+     * @param text  The typed text.
+     * @param limit The maximum number of patients to return.
+     * @return The matching patients in the order of their names; each patient at most once.
+     * @throws SQLException If the index has to be built and the patients cannot be read.
+     */
+    public List<Patient> find(String text, int limit) throws SQLException {
+        String prefix = normalize(text);
+        Snapshot current = getSnapshot();
+        List<Patient> found = new ArrayList<>();
+        Set<Long> pids = new HashSet<>();
+        int index = lowerBound(current.keys(), prefix);
+        while (index < current.keys().length && found.size() < limit
+                && current.keys()[index].startsWith(prefix)) {
+            Patient patient = current.patients()[index];
+            if (pids.add(patient.getPid())) {
+                found.add(patient);
+            }
+            index++;
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized void written(Patient patient) {
+        Snapshot current = this.snapshot;
+        this.generation++;
+        if (current == null) {
+            return;
+        }
+        Snapshot updated = without(current, patient.getPid());
+        for (String key : keysOf(patient)) {
+            updated = with(updated, key, patient);
+        }
+        this.snapshot = updated;
+    }
+
+    @Override
+    public synchronized void deleted(long pid) {
+        Snapshot current = this.snapshot;
+        this.generation++;
+        if (current != null) {
+            this.snapshot = without(current, pid);
+        }
+    }
+
+    @Override
+    public synchronized void invalidated() {
+        this.generation++;
+        this.snapshot = null;
+    }
+
+    /**
+     * Returns the current state of the index, building it if necessary. The patients are read without holding the
+     * lock of the index; the result is only published if no patient has been written in the meantime.
+     *
+     * @return The current keys and patients.
+     * @throws SQLException If the patients cannot be read.
+     */
+    private Snapshot getSnapshot() throws SQLException {
+        Snapshot current = this.snapshot;
+        while (current == null) {
+            long startGeneration;
+            synchronized (this) {
+                startGeneration = this.generation;
+            }
+            Snapshot built = build(DaoFactory.getDaoFactory().createPatientDAO().readAll());
+            synchronized (this) {
+                if (this.snapshot == null && this.generation == startGeneration) {
+                    this.snapshot = built;
+                }
+                current = this.snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Builds a sorted index of the given patients.
+     *
+     * @param patients All patients.
+     * @return The index.
+     */
+    private static Snapshot build(List<Patient> patients) {
+        if (patients.isEmpty()) {
+            return EMPTY;
+        }
+        List<Entry> entries = new ArrayList<>(patients.size() * 2);
+        for (Patient patient : patients) {
+            for (String key : keysOf(patient)) {
+                entries.add(new Entry(key, patient));
+            }
+        }
+        entries.sort(Comparator.comparing(Entry::key));
+        String[] keys = new String[entries.size()];
+        Patient[] indexed = new Patient[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).key();
+            indexed[i] = entries.get(i).patient();
+        }
+        return new Snapshot(keys, indexed);
+    }
+
+    /**
+     * Returns a copy of the index without the keys of the patient with the given id.
+     *
+     * @param current The index.
+     * @param pid     The id of the patient to remove.
+     * @return The index without the patient.
+     */
+    private static Snapshot without(Snapshot current, long pid) {
+        String[] keys = new String[current.keys().length];
+        Patient[] patients = new Patient[keys.length];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (current.patients()[i].getPid() != pid) {
+                keys[size] = current.keys()[i];
+                patients[size] = current.patients()[i];
+                size++;
+            }
+        }
+        return new Snapshot(Arrays.copyOf(keys, size), Arrays.copyOf(patients, size));
+    }
+
+    /**
+     * Returns a copy of the index with an additional key, inserted at its sorted position.
+     *
+     * @param current The index.
+     * @param key     The normalized key.
+     * @param patient The patient of the key.
+     * @return The extended index.
+     */
+    private static Snapshot with(Snapshot current, String key, Patient patient) {
+        int length = current.keys().length;
+        int position = lowerBound(current.keys(), key);
+        String[] keys = new String[length + 1];
+        Patient[] patients = new Patient[length + 1];
+        System.arraycopy(current.keys(), 0, keys, 0, position);
+        System.arraycopy(current.patients(), 0, patients, 0, position);
+        keys[position] = key;
+        patients[position] = patient;
+        System.arraycopy(current.keys(), position, keys, position + 1, length - position);
+        System.arraycopy(current.patients(), position, patients, position + 1, length - position);
+        return new Snapshot(keys, patients);
+    }
+
+    /**
+     * Finds the position of the first key which is not less than the given key.
+     *
+     * @param keys The sorted keys.
+     * @param key  The key to look for.
+     * @return The position of the first key greater than or equal to the given key.
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the keys under which a patient is indexed.
+     *
+     * @param patient The patient.
+     * @return The normalized names in both orders.
+     */
+    private static String[] keysOf(Patient patient) {
+        String surname = normalize(patient.getSurname());
+        String firstName = normalize(patient.getFirstName());
+        return new String[]{surname + " " + firstName, firstName + " " + surname};
+    }
+
+    /**
+     * Normalizes a name for the index: lower case, without umlauts and accents, single spaces.
+     *
+     * @param text The name or the typed text.
+     * @return The normalized text.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.strip().toLowerCase(Locale.GERMAN), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace("ß", "ss").replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,136 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes archived treatments and patients whose retention period has expired.
+ * <p>
+ * The service runs on a background thread once at startup and then every {@link #INTERVAL_HOURS} hours, so archiving
+ * a single record never has to wait for the deletion of expired ones. Expired rows are deleted in chunks of
+ * {@link #CHUNK_SIZE} rows, each chunk in its own {@link Transaction}. The write lock is released between the chunks,
+ * so writes of the UI are never blocked for long, even if a large backlog of expired rows has piled up.
+ * <p>
+ * Treatments are purged before patients. The number of deleted rows and the time of the last run are kept, see
+ * {@link #getLastReport()}.
+ */
+public final class RetentionService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final long INTERVAL_HOURS = 6;
+
+    private static ScheduledExecutorService scheduler;
+    private static volatile Report lastReport;
+
+    /**
+     * The result of a run of {@link #purgeExpired()}.
+     *
+     * @param treatments The number of deleted archived treatments.
+     * @param patients   The number of deleted archived patients.
+     * @param duration   The time the run took.
+     */
+    public record Report(int treatments, int patients, Duration duration) {
+
+        @Override
+        public String toString() {
+            return "Aufbewahrungsfrist: " + this.treatments + " Behandlungen und " + this.patients +
+                    " Patienten aus dem Archiv gelöscht (" + this.duration.toMillis() + " ms)";
+        }
+    }
+
+    private RetentionService() {
+    }
+
+    /**
+     * Deletes rows of one archive, returning the number of deleted rows.
+     */
+    @FunctionalInterface
+    private interface ChunkDeletion {
+        int delete(LocalDate today, int limit) throws SQLException;
+    }
+
+    /**
+     * Starts the periodic purge. The first run starts immediately. Calling the method again has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("retention").daemon().factory());
+        scheduler.scheduleWithFixedDelay(RetentionService::purgeExpired, 0, INTERVAL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * Stops the periodic purge and waits for a running purge to finish its current chunk, so the connections
+     * can be closed afterwards.
+     */
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Returns the result of the last successful run.
+     *
+     * @return The report of the last run, or {@code null} if no run has succeeded yet.
+     */
+    public static Report getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Deletes all expired archived treatments and patients. Errors are printed and do not stop later runs.
+     *
+     * @return The number of deleted rows and the time it took, or {@code null} if the run failed.
+     */
+    public static Report purgeExpired() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        DaoFactory factory = DaoFactory.getDaoFactory();
+        try {
+            int treatments = purge(factory.createTreatmentArchiveDao()::deleteExpired, today);
+            int patients = purge(factory.createArchivePatientDao()::deleteExpired, today);
+            Report report = new Report(treatments, patients, Duration.ofNanos(System.nanoTime() - start));
+            lastReport = report;
+            return report;
+        } catch (SQLException exception) {
+            System.out.println("Abgelaufene Archivdaten konnten nicht gelöscht werden!");
+            exception.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Deletes expired rows of one archive chunk by chunk until no expired rows are left or the thread is interrupted.
+     *
+     * @param deletion The deletion of one chunk.
+     * @param today    The current date.
+     * @return The total number of deleted rows.
+     * @throws SQLException If a chunk could not be deleted. Chunks deleted before stay deleted.
+     */
+    private static int purge(ChunkDeletion deletion, LocalDate today) throws SQLException {
+        int total = 0;
+        int deleted;
+        do {
+            try (Transaction transaction = Transaction.begin()) {
+                deleted = deletion.delete(today, CHUNK_SIZE);
+                transaction.commit();
+            }
+            total += deleted;
+        } while (deleted == CHUNK_SIZE && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+}
@@ -0,0 +1,219 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps rows of a query to objects by column name instead of column position.
+ * <p>
+ * A mapper owns the explicit column list of its queries, see {@link #getColumnList()}. Since every query selects
+ * exactly these columns in this order, the index of each column is resolved once when the mapper is built and
+ * shared by all statements using it. Adding a column to a table therefore changes neither the queries nor
+ * the mapping.
+ * <p>
+ * A {@link #project(String...) projection} selects only some of the columns and maps them with the same function;
+ * columns which are not selected read as {@code null}, {@code 0} or {@code false}. Projected objects are incomplete
+ * and must not be written back or put into an {@link EntityCache}.
+ *
+ * @param <T> the type of the mapped objects.
+ */
+public class RowMapper<T> {
+
+    private final RowFunction<T> function;
+    private final String[] columns;
+    private final String columnList;
+    private final Map<String, Integer> indices;
+
+    /**
+     * Constructs a mapper for the given columns.
+     *
+     * @param function the function creating an object from a row.
+     * @param columns  the columns to select, in the order of the select list.
+     */
+    public RowMapper(RowFunction<T> function, String... columns) {
+        this.function = function;
+        this.columns = columns.clone();
+        this.columnList = String.join(", ", columns);
+        this.indices = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            this.indices.put(columns[i], i + 1);
+        }
+    }
+
+    /**
+     * Returns the columns of this mapper as comma separated select list.
+     *
+     * @return the select list, e.g. <code>pid, firstname, surname</code>.
+     */
+    public String getColumnList() {
+        return this.columnList;
+    }
+
+    /**
+     * Returns a mapper which selects only the given columns of this mapper and maps them with the same function.
+     *
+     * @param columns the columns to select, each one a column of this mapper.
+     * @return the projected mapper.
+     * @throws IllegalArgumentException if a column is not a column of this mapper.
+     */
+    public RowMapper<T> project(String... columns) {
+        for (String column : columns) {
+            if (!this.indices.containsKey(column)) {
+                throw new IllegalArgumentException("Die Spalte " + column + " gehört nicht zu " +
+                        Arrays.toString(this.columns) + ".");
+            }
+        }
+        return new RowMapper<>(this.function, columns);
+    }
+
+    /**
+     * Maps the current row of the given result set.
+     *
+     * @param result the result set positioned at a valid row.
+     * @return the mapped object.
+     * @throws SQLException if a database access error occurs.
+     */
+    public T map(ResultSet result) throws SQLException {
+        return this.function.map(new Row(result, this.indices));
+    }
+
+    /**
+     * Maps all remaining rows of the given result set.
+     *
+     * @param result the result set.
+     * @return an <code>ArrayList</code> with one object per row.
+     * @throws SQLException if a database access error occurs.
+     */
+    public ArrayList<T> mapAll(ResultSet result) throws SQLException {
+        ArrayList<T> list = new ArrayList<>();
+        Row row = new Row(result, this.indices);
+        while (result.next()) {
+            list.add(this.function.map(row));
+        }
+        return list;
+    }
+
+    /**
+     * Creates an object from a row.
+     *
+     * @param <T> the type of the created objects.
+     */
+    @FunctionalInterface
+    public interface RowFunction<T> {
+        T map(Row row) throws SQLException;
+    }
+
+    /**
+     * Read access to the current row of a result set by column name. Column names are given exactly as in the
+     * column list of the mapper.
+     */
+    public static class Row {
+
+        private final ResultSet result;
+        private final Map<String, Integer> indices;
+
+        private Row(ResultSet result, Map<String, Integer> indices) {
+            this.result = result;
+            this.indices = indices;
+        }
+
+        /**
+         * Returns the index of the given column in the select list.
+         *
+         * @param column the name of the column.
+         * @return the index of the column, or {@code 0} if the column is not selected.
+         */
+        private int indexOf(String column) {
+            Integer index = this.indices.get(column);
+            return index == null ? 0 : index;
+        }
+
+        /**
+         * Indicates whether the given column is selected.
+         *
+         * @param column the name of the column.
+         * @return {@code true} if the column is part of the select list.
+         */
+        public boolean has(String column) {
+            return indexOf(column) != 0;
+        }
+
+        /**
+         * Returns the value of the given column.
+         *
+         * @param column the name of the column.
+         * @return the value, or {@code 0} if the column is not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public long getLong(String column) throws SQLException {
+            int index = indexOf(column);
+            return index == 0 ? 0 : this.result.getLong(index);
+        }
+
+        /**
+         * Returns the value of the given column.
+         *
+         * @param column the name of the column.
+         * @return the value, or {@code 0} if the column is not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public int getInt(String column) throws SQLException {
+            int index = indexOf(column);
+            return index == 0 ? 0 : this.result.getInt(index);
+        }
+
+        /**
+         * Returns the value of the given column.
+         *
+         * @param column the name of the column.
+         * @return the value, or {@code null} if the column is not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public String getString(String column) throws SQLException {
+            int index = indexOf(column);
+            return index == 0 ? null : this.result.getString(index);
+        }
+
+        /**
+         * Returns the value of the given column.
+         *
+         * @param column the name of the column.
+         * @return the value, or {@code false} if the column is not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public boolean getBoolean(String column) throws SQLException {
+            int index = indexOf(column);
+            return index != 0 && this.result.getBoolean(index);
+        }
+
+        /**
+         * Returns a date column, stored as epoch days.
+         *
+         * @param column the name of the column.
+         * @return the date, or {@code null} if the column is <code>NULL</code> or not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public LocalDate getDate(String column) throws SQLException {
+            int index = indexOf(column);
+            return index == 0 ? null : DaoImp.getDate(this.result, index);
+        }
+
+        /**
+         * Returns a time column, stored as minutes of the day.
+         *
+         * @param column the name of the column.
+         * @return the time, or {@code null} if the column is not selected.
+         * @throws SQLException if a database access error occurs.
+         */
+        public LocalTime getTime(String column) throws SQLException {
+            int index = indexOf(column);
+            return index == 0 ? null : DaoImp.getTime(this.result, index);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Brings the schema of the database up to date. The version of the schema is kept in <code>PRAGMA user_version</code>;
+ * migration <code>n</code> of {@link #MIGRATIONS} upgrades the schema from version <code>n - 1</code> to version
+ * <code>n</code>. New migrations are only ever appended to the list.
+ * <p>
+ * Every migration runs in its own {@link Transaction} together with the update of the version, so an existing
+ * database is upgraded in place and never left half migrated. Foreign keys are switched off while a migration runs,
+ * so tables can be rebuilt, and checked before it is committed.
+ */
+public class SchemaMigrator {
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new AddIndexesMigration(),
+            new IntegerDatesMigration(),
+            new FullTextSearchMigration(),
+            new SortIndexesMigration(),
+            new ArchiveForeignKeyMigration()
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Applies all migrations which the database of {@link ConnectionBuilder} has not seen yet.
+     *
+     * @throws SQLException If a migration fails. Migrations applied before the failing one stay applied.
+     */
+    public static void migrate() throws SQLException {
+        Connection connection = ConnectionBuilder.getConnection();
+        int version = getVersion(connection);
+        for (int next = version + 1; next <= MIGRATIONS.size(); next++) {
+            Migration migration = MIGRATIONS.get(next - 1);
+            apply(connection, next, migration);
+            System.out.println("Datenbank auf Version " + next + " migriert: " + migration.getDescription());
+        }
+    }
+
+    /**
+     * Returns the latest schema version known to the application.
+     *
+     * @return The version the database has after {@link #migrate()}.
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    /**
+     * Resets the schema version to zero, e.g. after all tables have been dropped.
+     *
+     * @param connection The writer connection.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static void resetVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = 0");
+        }
+    }
+
+    /**
+     * Reads the schema version of the database.
+     *
+     * @param connection The connection to the database.
+     * @return The value of <code>PRAGMA user_version</code>.
+     * @throws SQLException If a database access error occurs.
+     */
+    private static int getVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA user_version")) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies a single migration and sets the schema version within one transaction.
+     *
+     * @param connection The writer connection.
+     * @param version    The schema version after the migration.
+     * @param migration  The migration to apply.
+     * @throws SQLException If the migration fails or leaves rows violating a foreign key.
+     */
+    private static void apply(Connection connection, int version, Migration migration) throws SQLException {
+        // PRAGMA foreign_keys has no effect within a transaction, so it is switched before the transaction starts.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = OFF");
+        }
+        try (Transaction transaction = Transaction.begin()) {
+            migration.apply(connection);
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet violations = statement.executeQuery("PRAGMA foreign_key_check")) {
+                    if (violations.next()) {
+                        throw new SQLException("Migration " + version + " verletzt einen Fremdschlüssel in Tabelle "
+                                + violations.getString("table") + ".");
+                    }
+                }
+                // PRAGMA does not accept parameters; the version is an int, so it is safe to concatenate.
+                statement.execute("PRAGMA user_version = " + version);
+            }
+            transaction.commit();
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA foreign_keys = ON");
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the indexes for the sort orders of the archive views, which read their rows page by page. With an index the
+ * rows of a page are found by walking the index instead of sorting the whole archive for every page.
+ */
+class SortIndexesMigration implements Migration {
+
+    @Override
+    public String getDescription() {
+        return "Indizes für die Sortierung der Archive";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_archive_date ON treatment_archive (treatment_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_patient_archive_surname ON patient_archive (surname)");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Cache of compiled {@link PreparedStatement}s per {@link Connection}, keyed by their SQL.
+ * <p>
+ * A statement is handed out exclusively by {@link #borrow(Connection, String)} and has to be given back by
+ * {@link #release(PreparedStatement)} once its result has been read. This way two threads never bind parameters on
+ * the same statement, while SQLite does not have to parse the SQL again on every call.
+ */
+class StatementCache {
+
+    private static final int MAX_IDLE_PER_SQL = 4;
+
+    private final Map<Connection, Map<String, Deque<PreparedStatement>>> idleStatements = new IdentityHashMap<>();
+    private final Map<PreparedStatement, String> sqlOfStatement = new IdentityHashMap<>();
+
+    /**
+     * Returns an idle statement for the given SQL on the given connection, or prepares a new one.
+     *
+     * @param connection the connection the statement belongs to.
+     * @param sql        the SQL of the statement.
+     * @return a statement which is exclusively used by the caller until it is released.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    synchronized PreparedStatement borrow(Connection connection, String sql) throws SQLException {
+        Deque<PreparedStatement> idle = this.idleStatements
+                .computeIfAbsent(connection, key -> new HashMap<>())
+                .get(sql);
+        while (idle != null && !idle.isEmpty()) {
+            PreparedStatement statement = idle.pop();
+            if (!statement.isClosed()) {
+                return statement;
+            }
+            this.sqlOfStatement.remove(statement);
+        }
+        PreparedStatement statement = connection.prepareStatement(sql);
+        this.sqlOfStatement.put(statement, sql);
+        return statement;
+    }
+
+    /**
+     * Gives a borrowed statement back to the cache. Parameters are cleared, so the next caller starts
+     * with a clean statement. Statements exceeding the idle limit are closed.
+     *
+     * @param statement the statement to give back, may be {@code null}.
+     */
+    synchronized void release(PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+        String sql = this.sqlOfStatement.get(statement);
+        try {
+            if (sql == null || statement.isClosed()) {
+                this.sqlOfStatement.remove(statement);
+                return;
+            }
+            statement.clearParameters();
+            Deque<PreparedStatement> idle = this.idleStatements
+                    .computeIfAbsent(statement.getConnection(), key -> new HashMap<>())
+                    .computeIfAbsent(sql, key -> new ArrayDeque<>());
+            if (idle.size() < MAX_IDLE_PER_SQL) {
+                idle.push(statement);
+            } else {
+                this.sqlOfStatement.remove(statement);
+                statement.close();
+            }
+        } catch (SQLException exception) {
+            this.sqlOfStatement.remove(statement);
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes and forgets all statements of the given connection.
+     *
+     * @param connection the connection whose statements should be closed.
+     */
+    synchronized void closeAll(Connection connection) {
+        this.idleStatements.remove(connection);
+        Iterator<PreparedStatement> iterator = this.sqlOfStatement.keySet().iterator();
+        while (iterator.hasNext()) {
+            PreparedStatement statement = iterator.next();
+            try {
+                if (statement.isClosed() || statement.getConnection() == connection) {
+                    iterator.remove();
+                    statement.close();
+                }
+            } catch (SQLException exception) {
+                exception.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Unit of work on the writer connection which several DAOs can take part in.
+ * <p>
+ * All DAOs write via the writer connection of {@link ConnectionBuilder}, so every write of the current thread between
+ * {@link #begin()} and {@link #commit()} belongs to the same transaction. It is committed once at the end and rolled
+ * back if it is closed without a commit:
+ * <pre>
+ * try (Transaction transaction = Transaction.begin()) {
+ *     archiveDao.create(patient);
+ *     patientDao.deleteById(patient.getPid());
+ *     transaction.commit();
+ * }
+ * </pre>
+ * If a transaction is already running on the current thread, {@link #begin()} joins it. A joined transaction does not
+ * commit on its own; if it is closed without a commit, the whole transaction is rolled back.
+ * <p>
+ * The write lock of {@link ConnectionBuilder} is held for the whole transaction, so writes of other threads wait
+ * until it is finished.
+ * <p>
+ * The DAOs update their entity caches as soon as a statement has run. If a transaction is rolled back, all caches
+ * of {@link DaoFactory} are therefore cleared.
+ */
+public class Transaction implements AutoCloseable {
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private final Transaction root;
+    private final Connection connection;
+    private boolean committed;
+    private boolean rollbackOnly;
+
+    /**
+     * Constructs the outermost transaction of the current thread.
+     *
+     * @param connection the writer connection.
+     */
+    private Transaction(Connection connection) {
+        this.root = this;
+        this.connection = connection;
+    }
+
+    /**
+     * Constructs a transaction which joins the given outermost transaction.
+     *
+     * @param root the running outermost transaction.
+     */
+    private Transaction(Transaction root) {
+        this.root = root;
+        this.connection = root.connection;
+    }
+
+    /**
+     * Starts a new transaction on the writer connection, or joins the transaction already running on the
+     * current thread.
+     *
+     * @return the started or joined transaction.
+     * @throws SQLException if the transaction could not be started.
+     */
+    public static Transaction begin() throws SQLException {
+        Transaction current = CURRENT.get();
+        if (current != null) {
+            return new Transaction(current);
+        }
+        ReentrantLock writeLock = ConnectionBuilder.getWriteLock();
+        writeLock.lock();
+        try {
+            Connection connection = ConnectionBuilder.getConnection();
+            connection.setAutoCommit(false);
+            Transaction transaction = new Transaction(connection);
+            CURRENT.set(transaction);
+            return transaction;
+        } catch (SQLException exception) {
+            writeLock.unlock();
+            throw exception;
+        }
+    }
+
+    /**
+     * Indicates whether a transaction is running on the current thread.
+     *
+     * @return {@code true} if the current thread is within a transaction.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Commits the transaction. For a joined transaction this only marks its part as successful; the changes are
+     * committed together with the outermost transaction. The outermost transaction only counts as committed once the
+     * commit has succeeded, so a failed commit is rolled back by {@link #close()}.
+     *
+     * @throws SQLException if the commit fails, or if a joined transaction was closed without a commit.
+     */
+    public void commit() throws SQLException {
+        if (this.root != this) {
+            this.committed = true;
+            return;
+        }
+        if (this.rollbackOnly) {
+            throw new SQLException("Transaktion wurde wegen eines Fehlers zurückgerollt.");
+        }
+        this.connection.commit();
+        this.committed = true;
+    }
+
+    /**
+     * Ends the transaction. The outermost transaction is rolled back if it has not been committed, and the entity
+     * caches are cleared afterwards, even if the rollback fails. The writer connection returns to auto-commit mode.
+     *
+     * @throws SQLException if the rollback fails.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (this.root != this) {
+            if (!this.committed) {
+                this.root.rollbackOnly = true;
+            }
+            return;
+        }
+        try {
+            if (!this.committed) {
+                // Readers may share the writer connection, so the caches are cleared only once the rollback is done;
+                // otherwise a read in between could put the rolled back rows into them again.
+                try {
+                    this.connection.rollback();
+                } finally {
+                    DaoFactory.getDaoFactory().clearCaches();
+                }
+            }
+        } finally {
+            CURRENT.remove();
+            try {
+                this.connection.setAutoCommit(true);
+            } finally {
+                ConnectionBuilder.getWriteLock().unlock();
+            }
+        }
+    }
+}
@@ -1,43 +1,85 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Treatment;
-import de.hitec.nhplus.utils.DateConverter;
+import de.hitec.nhplus.model.TreatmentSearchHit;
+import de.hitec.nhplus.model.TreatmentSummary;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class TreatmentArchiveDao extends DaoImp<Treatment> {
 
+    private static final RowMapper<Treatment> MAPPER = new RowMapper<>(row -> new Treatment(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getString("remark"),
+            row.getBoolean("status"),
+            row.getDate("delete_date"),
+            row.getString("comment")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "remark", "status", "delete_date", "comment");
+
+    private static final RowMapper<TreatmentSummary> SUMMARY_MAPPER = new RowMapper<>(row -> new TreatmentSummary(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getBoolean("status")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "status");
+
+    private static final RowMapper<TreatmentSearchHit> SEARCH_MAPPER = new RowMapper<>(row -> new TreatmentSearchHit(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getBoolean("status"),
+            row.getString("snippet")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "status", "snippet");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("tid", "pid", "treatment_date", "begin", "end", "description", "status");
+
     public TreatmentArchiveDao(Connection connection) {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>TreatmentArchiveDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public TreatmentArchiveDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
     @Override
     protected PreparedStatement getCreateStatement(Treatment treatment) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO treatment_archive (tid, pid, treatment_date, begin, end, description, remark, status, delete_date, comment) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, treatment.getTid());
             preparedStatement.setLong(2, treatment.getPid());
-            preparedStatement.setString(3, treatment.getDate());
-            preparedStatement.setString(4, treatment.getBegin());
-            preparedStatement.setString(5, treatment.getEnd());
+            setDate(preparedStatement, 3, treatment.getLocalDate());
+            setTime(preparedStatement, 4, treatment.getLocalBegin());
+            setTime(preparedStatement, 5, treatment.getLocalEnd());
             preparedStatement.setString(6, treatment.getDescription());
             preparedStatement.setString(7, treatment.getRemarks());
             preparedStatement.setBoolean(8, treatment.getStatusBool());
-            if (treatment.getDateOfDelete() == null) {
-                preparedStatement.setString(9, null);
-            } else {
-                preparedStatement.setString(9, treatment.getDateOfDelete().toString());
-            }
+            setDate(preparedStatement, 9, treatment.getDateOfDelete());
             preparedStatement.setString(10, treatment.getComment());
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -50,8 +92,8 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
     protected PreparedStatement getReadByIDStatement(long tid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM treatment_archive WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment_archive WHERE tid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -60,24 +102,13 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
     }
 
 
-    @Override
-    protected Treatment getInstanceFromResultSet(ResultSet result) throws SQLException {
-        LocalDate date = DateConverter.convertStringToLocalDate(result.getString(3));
-        LocalTime begin = DateConverter.convertStringToLocalTime(result.getString(4));
-        LocalTime end = DateConverter.convertStringToLocalTime(result.getString(5));
-        String deleteStr = result.getString(9);
-        LocalDate delete = deleteStr == null ? null : DateConverter.convertStringToLocalDate(deleteStr);
-        return new Treatment(result.getLong(1), result.getLong(2),
-                date, begin, end, result.getString(6), result.getString(7), result.getBoolean(8), delete, result.getString(10));
-    }
-
 
     @Override
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM treatment_archive";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment_archive";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -85,28 +116,12 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
     }
 
 
-    @Override
-    protected ArrayList<Treatment> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Treatment> list = new ArrayList<Treatment>();
-        while (result.next()) {
-            LocalDate date = DateConverter.convertStringToLocalDate(result.getString(3));
-            LocalTime begin = DateConverter.convertStringToLocalTime(result.getString(4));
-            LocalTime end = DateConverter.convertStringToLocalTime(result.getString(5));
-            String deleteStr = result.getString(9);
-            LocalDate delete = deleteStr == null ? null : DateConverter.convertStringToLocalDate(deleteStr);
-            Treatment treatment = new Treatment(result.getLong(1), result.getLong(2),
-                    date, begin, end, result.getString(6), result.getString(7), result.getBoolean(8), delete, result.getString(10));
-            list.add(treatment);
-        }
-        return list;
-    }
-
 
     private PreparedStatement getReadAllTreatmentsOfOnePatientByPid(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM treatment_archive WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment_archive WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -115,8 +130,61 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
     }
 
     public List<Treatment> readTreatmentsByPid(long pid) throws SQLException {
-        ResultSet result = getReadAllTreatmentsOfOnePatientByPid(pid).executeQuery();
-        return getListFromResultSet(result);
+        return executeQuery(getReadAllTreatmentsOfOnePatientByPid(pid));
+    }
+
+    /**
+     * Queries the summaries of all archived treatments, without their remarks and comments, for showing them
+     * in a list.
+     *
+     * @return <code>List</code> with objects of class <code>TreatmentSummary</code> of all archived treatments.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSummary> readAllSummaries() throws SQLException {
+        final String SQL = "SELECT " + SUMMARY_MAPPER.getColumnList() + " FROM treatment_archive";
+        return executeQuery(prepareStatement(this.readConnection, SQL), SUMMARY_MAPPER);
+    }
+
+    /**
+     * Queries the summaries of the archived treatments at the given position of the given sort order, for showing
+     * the archive page by page.
+     *
+     * @param sortColumn The column to sort by. Must be one of the sortable columns.
+     * @param descending <code>true</code> for descending order.
+     * @param offset     The number of archived treatments to skip.
+     * @param limit      The maximum number of summaries to return.
+     * @return <code>List</code> with at most <code>limit</code> objects of class <code>TreatmentSummary</code>.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSummary> readSummaryPage(String sortColumn, boolean descending, long offset, int limit)
+            throws SQLException {
+        return executeQuery(prepareOffsetPage(SUMMARY_MAPPER.getColumnList(), sortColumn, descending, offset, limit),
+                SUMMARY_MAPPER);
+    }
+
+    /**
+     * Searches the descriptions and remarks of all archived treatments for the given words, using the full-text index
+     * <code>treatment_archive_fts</code>. A archived treatment is found if it contains all words, each one also as the beginning
+     * of a longer word.
+     *
+     * @param text  The words to search for.
+     * @param limit The maximum number of hits.
+     * @return <code>List</code> with the hits, the best matching first; empty if the text contains no words.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSearchHit> search(String text, int limit) throws SQLException {
+        String query = toFullTextQuery(text);
+        if (query == null) {
+            return List.of();
+        }
+        final String SQL = "SELECT " + SEARCH_MAPPER.getColumnList() + " FROM treatment_archive " +
+                "JOIN (SELECT rowid AS hit, rank, snippet(treatment_archive_fts, -1, '[', ']', '…', 12) AS snippet " +
+                "      FROM treatment_archive_fts WHERE treatment_archive_fts MATCH ? ORDER BY rank LIMIT ?) ON tid = hit " +
+                "ORDER BY rank";
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        statement.setString(1, query);
+        statement.setInt(2, limit);
+        return executeQuery(statement, SEARCH_MAPPER);
     }
 
     @Override
@@ -135,15 +203,15 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
                             "delete_date = ?, " +
                             "comment = ? " +
                             "WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, treatment.getPid());
-            preparedStatement.setString(2, treatment.getDate());
-            preparedStatement.setString(3, treatment.getBegin());
-            preparedStatement.setString(4, treatment.getEnd());
+            setDate(preparedStatement, 2, treatment.getLocalDate());
+            setTime(preparedStatement, 3, treatment.getLocalBegin());
+            setTime(preparedStatement, 4, treatment.getLocalEnd());
             preparedStatement.setString(5, treatment.getDescription());
             preparedStatement.setString(6, treatment.getRemarks());
             preparedStatement.setBoolean(7, treatment.getStatusBool());
-            preparedStatement.setString(8, treatment.getDateOfDelete().toString());
+            setDate(preparedStatement, 8, treatment.getDateOfDelete());
             preparedStatement.setString(9, treatment.getComment());
             preparedStatement.setLong(10, treatment.getTid());
         } catch (SQLException exception) {
@@ -157,7 +225,7 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "DELETE FROM treatment_archive WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -170,8 +238,8 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL =
-                    "Select * FROM treatment_archive WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "SELECT " + MAPPER.getColumnList() + " FROM treatment_archive WHERE tid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -179,16 +247,83 @@ public class TreatmentArchiveDao extends DaoImp<Treatment> {
         return preparedStatement;
     }
 
-    public void autoDeletionExpiredRecords() throws SQLException {
-        String sqlDelete = "DELETE FROM treatment_archive WHERE delete_date <=  DATE ('now')";
-        try {
-            this.connection.prepareStatement(sqlDelete).execute();
-    } catch(SQLException exception){
-            exception.printStackTrace();
-        }
+    /**
+     * Deletes archived treatments whose retention period has expired, at most the given number of rows at once.
+     * Called by the {@link RetentionService} until no expired rows are left.
+     *
+     * @param today The current date; rows to be deleted up to this day are expired.
+     * @param limit The maximum number of rows to delete.
+     * @return The number of deleted rows.
+     * @throws SQLException If a database access error occurs.
+     */
+    public int deleteExpired(LocalDate today, int limit) throws SQLException {
+        final String SQL = "DELETE FROM treatment_archive WHERE rowid IN " +
+                "(SELECT rowid FROM treatment_archive WHERE delete_date <= ? LIMIT ?)";
+        PreparedStatement statement = prepareStatement(this.connection, SQL);
+        setDate(statement, 1, today);
+        statement.setInt(2, limit);
+        return execute(statement);
     }
-}
 
+    /**
+     * Returns the primary key of the given treatment.
+     *
+     * @param treatment Object of <code>Treatment</code>.
+     * @return The id of the treatment.
+     */
+    @Override
+    protected long getKey(Treatment treatment) {
+        return treatment.getTid();
+    }
 
+    /**
+     * Sets the key generated for a newly created treatment.
+     *
+     * @param treatment Object of <code>Treatment</code> which was created.
+     * @param key       The generated id.
+     */
+    @Override
+    protected void setKey(Treatment treatment, long key) {
+        treatment.setTid(key);
+    }
 
+    /**
+     * Returns the mapper for the columns of the <code>treatment_archive</code> table.
+     *
+     * @return Mapper creating <code>Treatment</code> objects.
+     */
+    @Override
+    protected RowMapper<Treatment> getRowMapper() {
+        return MAPPER;
+    }
 
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>treatment_archive</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "treatment_archive";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>tid</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "tid";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
+    }
+}
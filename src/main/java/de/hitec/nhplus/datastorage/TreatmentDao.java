@@ -1,13 +1,13 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Treatment;
-import de.hitec.nhplus.utils.DateConverter;
+import de.hitec.nhplus.model.TreatmentSearchHit;
+import de.hitec.nhplus.model.TreatmentSummary;
 
 import java.sql.*;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Implements the Interface <code>DaoImp</code>. Overrides methods to generate specific <code>PreparedStatements</code>,
@@ -15,6 +15,49 @@ import java.util.List;
  */
 public class TreatmentDao extends DaoImp<Treatment> {
 
+    private static final RowMapper<Treatment> MAPPER = new RowMapper<>(row -> new Treatment(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getString("remark"),
+            row.getBoolean("status")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "remark", "status");
+
+    private static final RowMapper<TreatmentSummary> SUMMARY_MAPPER = new RowMapper<>(row -> new TreatmentSummary(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getBoolean("status")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "status");
+
+    private static final RowMapper<TreatmentSearchHit> SEARCH_MAPPER = new RowMapper<>(row -> new TreatmentSearchHit(
+            row.getLong("tid"),
+            row.getLong("pid"),
+            row.getDate("treatment_date"),
+            row.getTime("begin"),
+            row.getTime("end"),
+            row.getString("description"),
+            row.getBoolean("status"),
+            row.getString("snippet")),
+            "tid", "pid", "treatment_date", "begin", "end", "description", "status", "snippet");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("tid", "pid", "treatment_date", "begin", "end", "description", "status");
+
+    private static final List<UpdateColumn<Treatment>> UPDATE_COLUMNS = List.of(
+            new UpdateColumn<>("pid", "pid", (statement, index, treatment) -> statement.setLong(index, treatment.getPid())),
+            new UpdateColumn<>("date", "treatment_date", (statement, index, treatment) -> setDate(statement, index, treatment.getLocalDate())),
+            new UpdateColumn<>("begin", "begin", (statement, index, treatment) -> setTime(statement, index, treatment.getLocalBegin())),
+            new UpdateColumn<>("end", "end", (statement, index, treatment) -> setTime(statement, index, treatment.getLocalEnd())),
+            new UpdateColumn<>("description", "description", (statement, index, treatment) -> statement.setString(index, treatment.getDescription())),
+            new UpdateColumn<>("remarks", "remark", (statement, index, treatment) -> statement.setString(index, treatment.getRemarks())),
+            new UpdateColumn<>("status", "status", (statement, index, treatment) -> statement.setBoolean(index, treatment.getStatusBool())));
+
     /**
      * The constructor initiates an object of <code>TreatmentDao</code> and passes the connection to its super class.
      *
@@ -24,6 +67,29 @@ public class TreatmentDao extends DaoImp<Treatment> {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>TreatmentDao</code> which writes via the given connection and
+     * queries via the given read connection.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     */
+    public TreatmentDao(Connection connection, Connection readConnection) {
+        super(connection, readConnection);
+    }
+
+    /**
+     * The constructor initiates an object of <code>TreatmentDao</code> which additionally serves reads from the given
+     * cache and keeps it up to date.
+     *
+     * @param connection     Object of <code>Connection</code> to execute inserts, updates and deletes.
+     * @param readConnection Object of <code>Connection</code> to execute queries.
+     * @param cache          Cache of <code>Treatment</code> objects shared by all DAOs of this type.
+     */
+    public TreatmentDao(Connection connection, Connection readConnection, EntityCache<Treatment> cache) {
+        super(connection, readConnection, cache);
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to persist the given object of <code>Treatment</code>.
      *
@@ -36,11 +102,11 @@ public class TreatmentDao extends DaoImp<Treatment> {
         try {
             final String SQL = "INSERT INTO treatment (pid, treatment_date, begin, end, description, remark, status) " + //Hier wurde auch der Status hinzugefügt
                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, treatment.getPid());
-            preparedStatement.setString(2, treatment.getDate());
-            preparedStatement.setString(3, treatment.getBegin());
-            preparedStatement.setString(4, treatment.getEnd());
+            setDate(preparedStatement, 2, treatment.getLocalDate());
+            setTime(preparedStatement, 3, treatment.getLocalBegin());
+            setTime(preparedStatement, 4, treatment.getLocalEnd());
             preparedStatement.setString(5, treatment.getDescription());
             preparedStatement.setString(6, treatment.getRemarks());
             preparedStatement.setBoolean(7, treatment.getStatusBool());
@@ -60,8 +126,8 @@ public class TreatmentDao extends DaoImp<Treatment> {
     protected PreparedStatement getReadByIDStatement(long tid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM treatment WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment WHERE tid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -69,21 +135,6 @@ public class TreatmentDao extends DaoImp<Treatment> {
         return preparedStatement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of one treatment to an object of <code>Treatment</code>.
-     *
-     * @param result ResultSet with a single row. Columns will be mapped to an object of class <code>Treatment</code>.
-     * @return Object of class <code>Treatment</code> with the data from the resultSet.
-     */
-    @Override
-    protected Treatment getInstanceFromResultSet(ResultSet result) throws SQLException {
-        LocalDate date = DateConverter.convertStringToLocalDate(result.getString(3));
-        LocalTime begin = DateConverter.convertStringToLocalTime(result.getString(4));
-        LocalTime end = DateConverter.convertStringToLocalTime(result.getString(5));
-        return new Treatment(result.getLong(1), result.getLong(2),
-                date, begin, end, result.getString(6), result.getString(7), result.getBoolean(8));
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to query all treatments.
      *
@@ -93,36 +144,14 @@ public class TreatmentDao extends DaoImp<Treatment> {
     protected PreparedStatement getReadAllStatement() {
         PreparedStatement statement = null;
         try {
-            final String SQL = "SELECT * FROM treatment";
-            statement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment";
+            statement = prepareStatement(this.readConnection, SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return statement;
     }
 
-    /**
-     * Maps a <code>ResultSet</code> of all treatments to an <code>ArrayList</code> with objects of class
-     * <code>Treatment</code>.
-     *
-     * @param result ResultSet with all rows. The columns will be mapped to objects of class <code>Treatment</code>.
-     * @return <code>ArrayList</code> with objects of class <code>Treatment</code> of all rows in the
-     * <code>ResultSet</code>.
-     */
-    @Override
-    protected ArrayList<Treatment> getListFromResultSet(ResultSet result) throws SQLException {
-        ArrayList<Treatment> list = new ArrayList<Treatment>();
-        while (result.next()) {
-            LocalDate date = DateConverter.convertStringToLocalDate(result.getString(3));
-            LocalTime begin = DateConverter.convertStringToLocalTime(result.getString(4));
-            LocalTime end = DateConverter.convertStringToLocalTime(result.getString(5));
-            Treatment treatment = new Treatment(result.getLong(1), result.getLong(2),
-                    date, begin, end, result.getString(6), result.getString(7), result.getBoolean(8)); //Hier wurde auch der Status hinzugefügt
-            list.add(treatment);
-        }
-        return list;
-    }
-
     /**
      * Generates a <code>PreparedStatement</code> to query all treatments of a patient with a given patient id (pid).
      *
@@ -132,8 +161,8 @@ public class TreatmentDao extends DaoImp<Treatment> {
     private PreparedStatement getReadAllTreatmentsOfOnePatientByPid(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "SELECT * FROM treatment WHERE pid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "SELECT " + MAPPER.getColumnList() + " FROM treatment WHERE pid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -144,14 +173,128 @@ public class TreatmentDao extends DaoImp<Treatment> {
     /**
      * Queries all treatments of a given patient id (pid) and maps the results to an <code>ArrayList</code> with
      * objects of class <code>Treatment</code>.
+     * <p>
+     * If the cache holds all treatments, they are filtered in memory instead.
      *
      * @param pid Patient id to query all treatments referencing this id.
      * @return <code>ArrayList</code> with objects of class <code>Treatment</code> of all rows in the
      * <code>ResultSet</code>.
      */
     public List<Treatment> readTreatmentsByPid(long pid) throws SQLException {
-        ResultSet result = getReadAllTreatmentsOfOnePatientByPid(pid).executeQuery();
-        return getListFromResultSet(result);
+        EntityCache<Treatment> cache = getCache();
+        if (cache != null) {
+            List<Treatment> all = cache.getAll();
+            if (all != null) {
+                List<Treatment> treatments = new ArrayList<>();
+                for (Treatment treatment : all) {
+                    if (treatment.getPid() == pid) {
+                        treatments.add(treatment);
+                    }
+                }
+                return treatments;
+            }
+        }
+        return executeQueryAndCache(getReadAllTreatmentsOfOnePatientByPid(pid));
+    }
+
+    /**
+     * Queries the summaries of all treatments, without their remarks, for showing them in a list.
+     * <p>
+     * If the cache holds all treatments, the summaries are created from the cache instead.
+     *
+     * @return <code>List</code> with objects of class <code>TreatmentSummary</code> of all treatments.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSummary> readAllSummaries() throws SQLException {
+        List<TreatmentSummary> cached = summarizeCache(-1);
+        if (cached != null) {
+            return cached;
+        }
+        final String SQL = "SELECT " + SUMMARY_MAPPER.getColumnList() + " FROM treatment";
+        return executeQuery(prepareStatement(this.readConnection, SQL), SUMMARY_MAPPER);
+    }
+
+    /**
+     * Queries the summaries of all treatments of a given patient id (pid), without their remarks.
+     * <p>
+     * If the cache holds all treatments, the summaries are created from the cache instead.
+     *
+     * @param pid Patient id to query all treatments referencing this id.
+     * @return <code>List</code> with objects of class <code>TreatmentSummary</code> of the patient's treatments.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSummary> readSummariesByPid(long pid) throws SQLException {
+        List<TreatmentSummary> cached = summarizeCache(pid);
+        if (cached != null) {
+            return cached;
+        }
+        final String SQL = "SELECT " + SUMMARY_MAPPER.getColumnList() + " FROM treatment WHERE pid = ?";
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        statement.setLong(1, pid);
+        return executeQuery(statement, SUMMARY_MAPPER);
+    }
+
+    /**
+     * Queries the summaries of the treatments at the given position of the given sort order, for showing all
+     * treatments page by page.
+     *
+     * @param sortColumn The column to sort by. Must be one of the sortable columns.
+     * @param descending <code>true</code> for descending order.
+     * @param offset     The number of treatments to skip.
+     * @param limit      The maximum number of summaries to return.
+     * @return <code>List</code> with at most <code>limit</code> objects of class <code>TreatmentSummary</code>.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSummary> readSummaryPage(String sortColumn, boolean descending, long offset, int limit)
+            throws SQLException {
+        return executeQuery(prepareOffsetPage(SUMMARY_MAPPER.getColumnList(), sortColumn, descending, offset, limit),
+                SUMMARY_MAPPER);
+    }
+
+    /**
+     * Searches the descriptions and remarks of all treatments for the given words, using the full-text index
+     * <code>treatment_fts</code>. A treatment is found if it contains all words, each one also as the beginning
+     * of a longer word.
+     *
+     * @param text  The words to search for.
+     * @param limit The maximum number of hits.
+     * @return <code>List</code> with the hits, the best matching first; empty if the text contains no words.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<TreatmentSearchHit> search(String text, int limit) throws SQLException {
+        String query = toFullTextQuery(text);
+        if (query == null) {
+            return List.of();
+        }
+        final String SQL = "SELECT " + SEARCH_MAPPER.getColumnList() + " FROM treatment " +
+                "JOIN (SELECT rowid AS hit, rank, snippet(treatment_fts, -1, '[', ']', '…', 12) AS snippet " +
+                "      FROM treatment_fts WHERE treatment_fts MATCH ? ORDER BY rank LIMIT ?) ON tid = hit " +
+                "ORDER BY rank";
+        PreparedStatement statement = prepareStatement(this.readConnection, SQL);
+        statement.setString(1, query);
+        statement.setInt(2, limit);
+        return executeQuery(statement, SEARCH_MAPPER);
+    }
+
+    /**
+     * Creates the summaries of the cached treatments, if the cache holds all treatments.
+     *
+     * @param pid Patient id whose treatments to summarize, or -1 for all treatments.
+     * @return <code>List</code> with the summaries, or <code>null</code> if the cache is not complete.
+     */
+    private List<TreatmentSummary> summarizeCache(long pid) {
+        EntityCache<Treatment> cache = getCache();
+        List<Treatment> all = cache == null ? null : cache.getAll();
+        if (all == null) {
+            return null;
+        }
+        List<TreatmentSummary> summaries = new ArrayList<>();
+        for (Treatment treatment : all) {
+            if (pid == -1 || treatment.getPid() == pid) {
+                summaries.add(new TreatmentSummary(treatment));
+            }
+        }
+        return summaries;
     }
 
     /**
@@ -165,25 +308,7 @@ public class TreatmentDao extends DaoImp<Treatment> {
     protected PreparedStatement getUpdateStatement(Treatment treatment) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL =
-                    "UPDATE treatment SET " +
-                            "pid = ?, " +
-                            "treatment_date = ?, " +
-                            "begin = ?, " +
-                            "end = ?, " +
-                            "description = ?, " +
-                            "remark = ?, " +
-                            "status = ? " +
-                            "WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setLong(1, treatment.getPid());
-            preparedStatement.setString(2, treatment.getDate());
-            preparedStatement.setString(3, treatment.getBegin());
-            preparedStatement.setString(4, treatment.getEnd());
-            preparedStatement.setString(5, treatment.getDescription());
-            preparedStatement.setString(6, treatment.getRemarks());
-            preparedStatement.setBoolean(7, treatment.getStatusBool()); // Status mit 7
-            preparedStatement.setLong(8, treatment.getTid());
+            preparedStatement = prepareUpdate(treatment, null);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -202,7 +327,7 @@ public class TreatmentDao extends DaoImp<Treatment> {
         try {
             final String SQL =
                     "DELETE FROM treatment WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = prepareStatement(this.connection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -224,12 +349,84 @@ public class TreatmentDao extends DaoImp<Treatment> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL =
-                    "Select * FROM treatment WHERE tid = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "SELECT " + MAPPER.getColumnList() + " FROM treatment WHERE tid = ?";
+            preparedStatement = prepareStatement(this.readConnection, SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return preparedStatement;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the primary key of the given treatment.
+     *
+     * @param treatment Object of <code>Treatment</code>.
+     * @return The id of the treatment.
+     */
+    @Override
+    protected long getKey(Treatment treatment) {
+        return treatment.getTid();
+    }
+
+    /**
+     * Sets the key generated for a newly created treatment.
+     *
+     * @param treatment Object of <code>Treatment</code> which was created.
+     * @param key       The generated id.
+     */
+    @Override
+    protected void setKey(Treatment treatment, long key) {
+        treatment.setTid(key);
+    }
+
+    /**
+     * Returns the mapper for the columns of the <code>treatment</code> table.
+     *
+     * @return Mapper creating <code>Treatment</code> objects.
+     */
+    @Override
+    protected RowMapper<Treatment> getRowMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the name of the table this DAO works on.
+     *
+     * @return <code>treatment</code>
+     */
+    @Override
+    protected String getTableName() {
+        return "treatment";
+    }
+
+    /**
+     * Returns the primary key column of the table.
+     *
+     * @return <code>tid</code>
+     */
+    @Override
+    protected String getKeyColumn() {
+        return "tid";
+    }
+
+    /**
+     * Returns the columns of the table which can be used to sort paged reads.
+     *
+     * @return Set of sortable column names.
+     */
+    @Override
+    protected Set<String> getSortColumns() {
+        return SORT_COLUMNS;
+    }
+
+    /**
+     * Returns the columns written when a treatment is updated, and the fields they are written from.
+     *
+     * @return List of updatable columns.
+     */
+    @Override
+    protected List<UpdateColumn<Treatment>> getUpdateColumns() {
+        return UPDATE_COLUMNS;
+    }
+}
@@ -0,0 +1,158 @@
+package de.hitec.nhplus.datastorage;
+
+import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentSummary;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-memory index of the summaries of all treatments, grouped by patient, so switching the patient of the treatment
+ * list does not query the database.
+ * <p>
+ * The summaries are read once with {@link TreatmentDao#readAllSummaries()} on the first lookup and kept in a
+ * {@link LongMap} from the patient id to the summaries of the patient, sorted by treatment id. A second map from the
+ * treatment id to its summary finds the entry to replace or remove. The sorted list of all summaries is kept until
+ * the next write. The index follows the writes of the treatment
+ * cache as its {@link EntityCache.WriteListener}; if the state of the treatments becomes uncertain, e.g. after a
+ * rollback or after a patient and with it all of its treatments have been deleted, it is read again on the next
+ * lookup.
+ */
+public class TreatmentIndex implements EntityCache.WriteListener<Treatment> {
+
+    private static final Comparator<TreatmentSummary> BY_TID = Comparator.comparingLong(TreatmentSummary::getTid);
+
+    private LongMap<List<TreatmentSummary>> byPid;
+    private LongMap<TreatmentSummary> byTid;
+    private List<TreatmentSummary> all;
+    private long generation;
+
+    /**
+     * Returns the summaries of all treatments of the given patient.
+     *
+     * @param pid The id of the patient.
+     * @return A new list with the summaries, sorted by treatment id.
+     * @throws SQLException If the index has to be built and the treatments cannot be read.
+     */
+    public List<TreatmentSummary> getSummaries(long pid) throws SQLException {
+        while (true) {
+            synchronized (this) {
+                if (this.byPid != null) {
+                    List<TreatmentSummary> summaries = this.byPid.get(pid);
+                    return summaries == null ? new ArrayList<>() : new ArrayList<>(summaries);
+                }
+            }
+            build();
+        }
+    }
+
+    /**
+     * Returns the summaries of the treatments of all patients.
+     *
+     * @return A new list with the summaries, sorted by treatment id.
+     * @throws SQLException If the index has to be built and the treatments cannot be read.
+     */
+    public List<TreatmentSummary> getAllSummaries() throws SQLException {
+        while (true) {
+            synchronized (this) {
+                if (this.byTid != null) {
+                    if (this.all == null) {
+                        this.all = this.byTid.values();
+                        this.all.sort(BY_TID);
+                    }
+                    return new ArrayList<>(this.all);
+                }
+            }
+            build();
+        }
+    }
+
+    @Override
+    public synchronized void written(Treatment treatment) {
+        this.generation++;
+        this.all = null;
+        if (this.byTid != null) {
+            remove(treatment.getTid());
+            add(new TreatmentSummary(treatment));
+        }
+    }
+
+    @Override
+    public synchronized void deleted(long tid) {
+        this.generation++;
+        this.all = null;
+        if (this.byTid != null) {
+            remove(tid);
+        }
+    }
+
+    @Override
+    public synchronized void invalidated() {
+        this.generation++;
+        this.byPid = null;
+        this.byTid = null;
+        this.all = null;
+    }
+
+    /**
+     * Reads the summaries of all treatments. They are read without holding the lock of the index and only taken
+     * over if no treatment has been written in the meantime.
+     *
+     * @throws SQLException If the treatments cannot be read.
+     */
+    private void build() throws SQLException {
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = this.generation;
+        }
+        List<TreatmentSummary> summaries = DaoFactory.getDaoFactory().createTreatmentDao().readAllSummaries();
+        synchronized (this) {
+            if (this.byTid == null && this.generation == startGeneration) {
+                this.byPid = new LongMap<>();
+                this.byTid = new LongMap<>();
+                for (TreatmentSummary summary : summaries) {
+                    add(summary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a summary to both maps, keeping the list of the patient sorted by treatment id.
+     *
+     * @param summary The summary to add.
+     */
+    private void add(TreatmentSummary summary) {
+        this.byTid.put(summary.getTid(), summary);
+        List<TreatmentSummary> summaries = this.byPid.get(summary.getPid());
+        if (summaries == null) {
+            summaries = new ArrayList<>();
+            this.byPid.put(summary.getPid(), summaries);
+        }
+        int position = summaries.size();
+        // New treatments have the highest id, so they are usually appended.
+        while (position > 0 && summaries.get(position - 1).getTid() > summary.getTid()) {
+            position--;
+        }
+        summaries.add(position, summary);
+    }
+
+    /**
+     * Removes the summary of the given treatment from both maps.
+     *
+     * @param tid The id of the treatment.
+     */
+    private void remove(long tid) {
+        TreatmentSummary removed = this.byTid.remove(tid);
+        if (removed == null) {
+            return;
+        }
+        List<TreatmentSummary> summaries = this.byPid.get(removed.getPid());
+        summaries.remove(removed);
+        if (summaries.isEmpty()) {
+            this.byPid.remove(removed.getPid());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package de.hitec.nhplus.datastorage;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableSet;
+import javafx.css.PseudoClass;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects the entities edited in a {@link TableView} and writes them to the database later, as one batch.
+ * <p>
+ * Every committed cell edit only enqueues the edited entity. Several edits of the same entity before the next write
+ * result in a single <code>UPDATE</code>. The collected entities are written with {@link Dao#updateAll(List)}, one
+ * transaction for all of them, {@link #FLUSH_DELAY_MILLIS} milliseconds after the first edit, when the focus leaves
+ * the table, when the table is removed from the window, e.g. by switching to another view, and when the application
+ * is closed ({@link #flushAll()}). Writes never overlap: edits made while a batch is written are collected for the
+ * next one.
+ * <p>
+ * If a batch fails, none of its entities is stored. Their rows are marked with the CSS pseudo-class
+ * <code>write-failed</code> until the entity is written successfully, e.g. after it has been edited again. The
+ * queue must only be used on the JavaFX application thread.
+ *
+ * @param <T> the type of the entities.
+ */
+public final class WriteBehindQueue<T> {
+
+    private static final double FLUSH_DELAY_MILLIS = 500;
+    private static final PseudoClass WRITE_FAILED = PseudoClass.getPseudoClass("write-failed");
+    private static final Set<WriteBehindQueue<?>> QUEUES = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final Dao<T> dao;
+    private final ToLongFunction<T> keyOf;
+    private final Map<Long, T> pending = new LinkedHashMap<>();
+    private final ObservableSet<T> failed = FXCollections.observableSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final PauseTransition timer = new PauseTransition(Duration.millis(FLUSH_DELAY_MILLIS));
+    private boolean writing;
+    private boolean flushRequested;
+    private volatile CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param dao   the DAO to write the entities with.
+     * @param keyOf returns the primary key of an entity, which identifies repeated edits of the same entity.
+     */
+    public WriteBehindQueue(Dao<T> dao, ToLongFunction<T> keyOf) {
+        this.dao = dao;
+        this.keyOf = keyOf;
+        this.timer.setOnFinished(event -> flush());
+        QUEUES.add(this);
+    }
+
+    /**
+     * Flushes the queue when the focus leaves the given table or the table is removed from its window, and marks the
+     * rows of entities which could not be written. Replaces the row factory of the table.
+     *
+     * @param tableView the table whose edits are enqueued.
+     */
+    public void bind(TableView<T> tableView) {
+        tableView.focusWithinProperty().addListener((observable, wasFocused, isFocused) -> {
+            if (!isFocused) {
+                flush();
+            }
+        });
+        tableView.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null) {
+                flush();
+            }
+        });
+        tableView.setRowFactory(table -> new FailureMarkingRow());
+    }
+
+    /**
+     * Row which is marked while its entity could not be written. A row only follows the failed entities while it
+     * shows an entity, and only through a weak listener, so rows discarded by the table can be collected.
+     */
+    private final class FailureMarkingRow extends TableRow<T> {
+
+        private final InvalidationListener listener = observable -> mark();
+        private final WeakInvalidationListener weakListener = new WeakInvalidationListener(this.listener);
+        private boolean listening;
+
+        @Override
+        protected void updateItem(T item, boolean empty) {
+            super.updateItem(item, empty);
+            boolean shown = !empty && item != null;
+            if (shown != this.listening) {
+                if (shown) {
+                    failed.addListener(this.weakListener);
+                } else {
+                    failed.removeListener(this.weakListener);
+                }
+                this.listening = shown;
+            }
+            mark();
+        }
+
+        private void mark() {
+            T item = getItem();
+            pseudoClassStateChanged(WRITE_FAILED, item != null && failed.contains(item));
+        }
+    }
+
+    /**
+     * Enqueues an edited entity. It replaces an earlier, not yet written state of the same entity.
+     *
+     * @param entity the edited entity.
+     */
+    public void enqueue(T entity) {
+        this.pending.put(this.keyOf.applyAsLong(entity), entity);
+        if (this.timer.getStatus() != Animation.Status.RUNNING) {
+            this.timer.playFromStart();
+        }
+    }
+
+    /**
+     * Drops the enqueued state of an entity, e.g. because it is about to be deleted.
+     *
+     * @param key the primary key of the entity.
+     */
+    public void discard(long key) {
+        this.pending.remove(key);
+    }
+
+    /**
+     * Writes all enqueued entities in the background. If a batch is still being written, the entities are written
+     * right after it.
+     */
+    public void flush() {
+        this.timer.stop();
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        if (this.writing) {
+            this.flushRequested = true;
+            return;
+        }
+        List<T> batch = new ArrayList<>(this.pending.values());
+        this.pending.clear();
+        this.writing = true;
+        // Completed on the writing thread, also if the write fails, so flushAndWait() can wait for it on the
+        // JavaFX application thread.
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        this.inFlight = written;
+        AsyncDao.run(() -> {
+                    try {
+                        this.dao.updateAll(batch);
+                    } finally {
+                        written.complete(null);
+                    }
+                })
+                .handle((result, throwable) -> {
+                    this.writing = false;
+                    if (throwable == null) {
+                        batch.forEach(this.failed::remove);
+                    } else {
+                        System.out.println(batch.size() + " Änderungen konnten nicht gespeichert werden!");
+                        throwable.printStackTrace();
+                        this.failed.addAll(batch);
+                    }
+                    if (this.flushRequested) {
+                        this.flushRequested = false;
+                        flush();
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Waits until a batch which is being written in the background is finished, then writes all enqueued entities on
+     * the calling thread and waits until they are stored. Errors are only printed, so the caller can go on with the
+     * other queues.
+     */
+    public void flushAndWait() {
+        this.timer.stop();
+        this.inFlight.join();
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        List<T> batch = new ArrayList<>(this.pending.values());
+        this.pending.clear();
+        try {
+            this.dao.updateAll(batch);
+        } catch (SQLException | RuntimeException exception) {
+            System.out.println(batch.size() + " Änderungen konnten nicht gespeichert werden!");
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the enqueued entities of all queues and waits until they are stored. Meant to be called before the
+     * connections are closed.
+     */
+    public static void flushAll() {
+        for (WriteBehindQueue<?> queue : new ArrayList<>(QUEUES)) {
+            queue.flushAndWait();
+        }
+    }
+}
@@ -10,7 +10,7 @@ import javafx.beans.property.SimpleLongProperty;
 public class Admin extends Person {
 
     private SimpleLongProperty aid;
-    private final String password;
+    private String password;
 
     /**
      * Constructs a new Admin with the given first name, last name, and password.
@@ -48,6 +48,15 @@ public class Admin extends Person {
         return password;
     }
 
+    /**
+     * Sets the password of this admin.
+     *
+     * @param password the new password hash
+     */
+    public void setPassword(String password) {
+        this.password = tracked("password", this.password, password);
+    }
+
     /**
      * Returns the admin ID.
      *
@@ -55,6 +64,19 @@ public class Admin extends Person {
      */
     public long getAid() { return aid.get(); }
 
+    /**
+     * Sets the admin ID. Used to hand the generated key back to a newly persisted admin.
+     *
+     * @param aid the admin's unique identifier
+     */
+    public void setAid(long aid) {
+        if (this.aid == null) {
+            this.aid = new SimpleLongProperty(aid);
+        } else {
+            this.aid.set(aid);
+        }
+    }
+
     /**
      * Indicates whether this person is an admin.
      * This method always returns {@code true} for instances of {@code Admin}.
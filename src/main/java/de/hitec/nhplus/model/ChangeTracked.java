@@ -0,0 +1,68 @@
+package de.hitec.nhplus.model;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Base class of model classes which remember the fields changed since they were read from or last written to the
+ * database. The DAOs use this to update only the changed columns and to skip updates of unchanged objects.
+ * <p>
+ * Changes are recorded by the setters, never in constructors, so objects created by the DAOs start unchanged and
+ * no reference to <code>this</code> escapes before a subclass is initialized. A property which is set directly
+ * instead of through its setter is therefore not tracked. Fields are named like their getters, e.g.
+ * <code>firstName</code>. The methods are synchronized, because fields are changed on the JavaFX application thread
+ * while the DAOs write in the background.
+ */
+public abstract class ChangeTracked {
+
+    private final Set<String> changedFields = new HashSet<>();
+
+    /**
+     * Marks the given field as changed if the new value differs from the old one. Meant to be used by setters:
+     * <code>this.date = tracked("date", this.date, date);</code> or
+     * <code>this.surname.set(tracked("surname", this.surname.get(), surname));</code>
+     *
+     * @param field    the name of the field.
+     * @param oldValue the current value of the field.
+     * @param newValue the value to set.
+     * @param <V>      the type of the field.
+     * @return the new value.
+     */
+    protected <V> V tracked(String field, V oldValue, V newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            markChanged(field);
+        }
+        return newValue;
+    }
+
+    /**
+     * Marks the given field as changed.
+     *
+     * @param field the name of the field.
+     */
+    protected synchronized void markChanged(String field) {
+        this.changedFields.add(field);
+    }
+
+    /**
+     * Returns the fields changed since the last call and forgets them, so changes made while the result is written
+     * are reported by the next call.
+     *
+     * @return a new set with the names of the changed fields; empty if nothing has changed.
+     */
+    public synchronized Set<String> takeChangedFields() {
+        Set<String> taken = new HashSet<>(this.changedFields);
+        this.changedFields.clear();
+        return taken;
+    }
+
+    /**
+     * Marks the given fields as changed again, e.g. because writing them to the database failed.
+     *
+     * @param fields the names of the fields.
+     */
+    public synchronized void restoreChangedFields(Set<String> fields) {
+        this.changedFields.addAll(fields);
+    }
+}
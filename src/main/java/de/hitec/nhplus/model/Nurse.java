@@ -60,6 +60,19 @@ public class Nurse extends Person {
      */
     public long getNid() { return nid.get(); }
 
+    /**
+     * Sets the nurse ID. Used to hand the generated key back to a newly persisted nurse.
+     *
+     * @param nid the nurse's unique identifier
+     */
+    public void setNid(long nid) {
+        if (this.nid == null) {
+            this.nid = new SimpleLongProperty(nid);
+        } else {
+            this.nid.set(nid);
+        }
+    }
+
 
     /**
      * Returns the phone number property.
@@ -81,7 +94,7 @@ public class Nurse extends Person {
      *
      * @param phoneNumber the new phone number to set
      */
-    public void setPhoneNumber(String phoneNumber) { this.phoneNumber.set(phoneNumber); }
+    public void setPhoneNumber(String phoneNumber) { this.phoneNumber.set(tracked("phoneNumber", this.phoneNumber.get(), phoneNumber)); }
 
     /**
      * Returns the password of the nurse.
@@ -98,7 +111,7 @@ public class Nurse extends Person {
      * @param password the new password to set
      */
     public void setPassword(String password){
-        this.password = password;
+        this.password = tracked("password", this.password, password);
     }
 
     /**
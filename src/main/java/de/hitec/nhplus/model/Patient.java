@@ -35,6 +35,7 @@ public class Patient extends Person {
         this.dateOfBirth = new SimpleStringProperty(DateConverter.convertLocalDateToString(dateOfBirth));
         this.careLevel = new SimpleStringProperty(careLevel);
         this.roomNumber = new SimpleStringProperty(roomNumber);
+        this.status = status;
     }
 
     /**
@@ -84,6 +85,19 @@ public class Patient extends Person {
         return pid;
     }
 
+    /**
+     * Sets the patient ID. Used to hand the generated key back to a newly persisted patient.
+     *
+     * @param pid the patient's unique identifier
+     */
+    public void setPid(long pid) {
+        if (this.pid == null) {
+            this.pid = new SimpleLongProperty(pid);
+        } else {
+            this.pid.set(pid);
+        }
+    }
+
 
     /**
      * Returns the patient's date of birth as a string.
@@ -94,6 +108,15 @@ public class Patient extends Person {
         return dateOfBirth.get();
     }
 
+    /**
+     * Returns the patient's date of birth.
+     *
+     * @return date of birth
+     */
+    public LocalDate getLocalDateOfBirth() {
+        return DateConverter.convertStringToLocalDate(dateOfBirth.get());
+    }
+
     public LocalDate getDateOfDelete() {
         return delete_date == null ? null : delete_date;
     }
@@ -118,7 +141,7 @@ public class Patient extends Person {
      * @param dateOfBirth as string in the following format: YYYY-MM-DD.
      */
     public void setDateOfBirth(String dateOfBirth) {
-        this.dateOfBirth.set(dateOfBirth);
+        this.dateOfBirth.set(tracked("dateOfBirth", this.dateOfBirth.get(), dateOfBirth));
     }
 
     /**
@@ -145,7 +168,7 @@ public class Patient extends Person {
      * @param careLevel the care level to set
      */
     public void setCareLevel(String careLevel) {
-        this.careLevel.set(careLevel);
+        this.careLevel.set(tracked("careLevel", this.careLevel.get(), careLevel));
     }
 
     /**
@@ -172,7 +195,7 @@ public class Patient extends Person {
      * @param roomNumber the room number to set
      */
     public void setRoomNumber(String roomNumber) {
-        this.roomNumber.set(roomNumber);
+        this.roomNumber.set(tracked("roomNumber", this.roomNumber.get(), roomNumber));
     }
 
     public String getStatus() {
@@ -183,7 +206,7 @@ public class Patient extends Person {
         return status;
     }
 
-    public void setStatus(boolean status) {this.status = status;}
+    public void setStatus(boolean status) {this.status = tracked("status", this.status, status);}
 
     /**
      * Checks whether this person is an admin.
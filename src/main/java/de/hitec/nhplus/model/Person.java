@@ -5,9 +5,10 @@ import javafx.beans.property.SimpleStringProperty;
 
 /**
  * Abstract base class representing a person with a first name and surname.
- * This class uses JavaFX properties to allow for data binding.
+ * This class uses JavaFX properties to allow for data binding; changes made through the setters are tracked,
+ * see {@link ChangeTracked}.
  */
-public abstract class Person {
+public abstract class Person extends ChangeTracked {
     private final SimpleStringProperty firstName;
     private final SimpleStringProperty surname;
 
@@ -47,7 +48,7 @@ public abstract class Person {
      * @param firstName the new first name.
      */
     public void setFirstName(String firstName) {
-        this.firstName.set(firstName);
+        this.firstName.set(tracked("firstName", this.firstName.get(), firstName));
     }
 
     /**
@@ -75,7 +76,7 @@ public abstract class Person {
      * @param surname the new surname.
      */
     public void setSurname(String surname) {
-        this.surname.set(surname);
+        this.surname.set(tracked("surname", this.surname.get(), surname));
     }
 
     /**
@@ -5,7 +5,7 @@ import de.hitec.nhplus.utils.DateConverter;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
-public class Treatment {
+public class Treatment extends ChangeTracked {
     private long tid;
     private final long pid;
     private LocalDate date;
@@ -87,6 +87,15 @@ public class Treatment {
         return tid;
     }
 
+    /**
+     * Sets the treatment ID. Used to hand the generated key back to a newly persisted treatment.
+     *
+     * @param tid treatment ID
+     */
+    public void setTid(long tid) {
+        this.tid = tid;
+    }
+
 
     /**
      * Returns the patient ID associated with this treatment.
@@ -106,6 +115,33 @@ public class Treatment {
         return date.toString();
     }
 
+    /**
+     * Returns the treatment date.
+     *
+     * @return treatment date
+     */
+    public LocalDate getLocalDate() {
+        return date;
+    }
+
+    /**
+     * Returns the start time of the treatment.
+     *
+     * @return start time
+     */
+    public LocalTime getLocalBegin() {
+        return begin;
+    }
+
+    /**
+     * Returns the end time of the treatment.
+     *
+     * @return end time
+     */
+    public LocalTime getLocalEnd() {
+        return end;
+    }
+
     /**
      * Returns the start time of the treatment as a string.
      *
@@ -144,7 +180,7 @@ public class Treatment {
      * @param date date string in the format "YYYY-MM-DD"
      */
     public void setDate(String date) {
-        this.date = DateConverter.convertStringToLocalDate(date);
+        this.date = tracked("date", this.date, DateConverter.convertStringToLocalDate(date));
     }
 
 
@@ -156,7 +192,7 @@ public class Treatment {
     public void setDateOfDelete(LocalDate date) {this.delete_date = date;}
 
     public void setBegin(String begin) {
-        this.begin = DateConverter.convertStringToLocalTime(begin);
+        this.begin = tracked("begin", this.begin, DateConverter.convertStringToLocalTime(begin));
     }
 
     /**
@@ -165,7 +201,7 @@ public class Treatment {
      * @param end end time string in the format "HH:mm"
      */
     public void setEnd(String end) {
-        this.end = DateConverter.convertStringToLocalTime(end);;
+        this.end = tracked("end", this.end, DateConverter.convertStringToLocalTime(end));
     }
 
     /**
@@ -184,7 +220,7 @@ public class Treatment {
      * @param description description to set
      */
     public void setDescription(String description) {
-        this.description = description;
+        this.description = tracked("description", this.description, description);
     }
 
     /**
@@ -202,10 +238,10 @@ public class Treatment {
      * @param remarks remarks to set
      */
     public void setRemarks(String remarks) {
-        this.remarks = remarks;
+        this.remarks = tracked("remarks", this.remarks, remarks);
     }
 
-    public void setStatus(boolean status) {this.status = status;}
+    public void setStatus(boolean status) {this.status = tracked("status", this.status, status);}
 
     public static String getStatusLabel(boolean status) {return status ? "Archived" : "Active";}
 
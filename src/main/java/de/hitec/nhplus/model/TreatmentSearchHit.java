@@ -0,0 +1,39 @@
+package de.hitec.nhplus.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Row of a treatment list found by a full-text search. In addition to the summary it holds a snippet of the
+ * description or remark with the matching words in square brackets.
+ */
+public class TreatmentSearchHit extends TreatmentSummary {
+    private final String snippet;
+
+    /**
+     * Constructor to initiate an object of class <code>TreatmentSearchHit</code> with the given parameter.
+     *
+     * @param tid Id of the treatment.
+     * @param pid Id of the treated patient.
+     * @param date Date of the Treatment.
+     * @param begin Time of the start of the treatment.
+     * @param end Time of the end of the treatment.
+     * @param description Description of the treatment.
+     * @param status Status of the treatment.
+     * @param snippet Part of the description or remark containing the search terms.
+     */
+    public TreatmentSearchHit(long tid, long pid, LocalDate date, LocalTime begin, LocalTime end, String description,
+                              boolean status, String snippet) {
+        super(tid, pid, date, begin, end, description, status);
+        this.snippet = snippet;
+    }
+
+    /**
+     * Returns the part of the description or remark containing the search terms.
+     *
+     * @return snippet with the matching words in square brackets
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+}
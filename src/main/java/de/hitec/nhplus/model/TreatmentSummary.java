@@ -0,0 +1,114 @@
+package de.hitec.nhplus.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Row of a treatment list. Holds only the columns shown in the table, without the free-text remark and comment,
+ * so large lists stay small in memory. The complete {@link Treatment} is read by its id when a single treatment
+ * is opened.
+ */
+public class TreatmentSummary {
+    private final long tid;
+    private final long pid;
+    private final LocalDate date;
+    private final LocalTime begin;
+    private final LocalTime end;
+    private final String description;
+    private final boolean status;
+
+    /**
+     * Constructor to initiate an object of class <code>TreatmentSummary</code> with the given parameter.
+     *
+     * @param tid Id of the treatment.
+     * @param pid Id of the treated patient.
+     * @param date Date of the Treatment.
+     * @param begin Time of the start of the treatment.
+     * @param end Time of the end of the treatment.
+     * @param description Description of the treatment.
+     * @param status Status of the treatment.
+     */
+    public TreatmentSummary(long tid, long pid, LocalDate date, LocalTime begin, LocalTime end, String description,
+                            boolean status) {
+        this.tid = tid;
+        this.pid = pid;
+        this.date = date;
+        this.begin = begin;
+        this.end = end;
+        this.description = description;
+        this.status = status;
+    }
+
+    /**
+     * Constructor to initiate the summary of a complete treatment, e.g. one which was just created.
+     *
+     * @param treatment The treatment to summarize.
+     */
+    public TreatmentSummary(Treatment treatment) {
+        this(treatment.getTid(), treatment.getPid(), treatment.getLocalDate(), treatment.getLocalBegin(),
+                treatment.getLocalEnd(), treatment.getDescription(), treatment.getStatusBool());
+    }
+
+    /**
+     * Returns the treatment ID.
+     *
+     * @return treatment ID
+     */
+    public long getTid() {
+        return tid;
+    }
+
+    /**
+     * Returns the patient ID associated with this treatment.
+     *
+     * @return patient ID
+     */
+    public long getPid() {
+        return pid;
+    }
+
+    /**
+     * Returns the treatment date as a string.
+     *
+     * @return treatment date in ISO format (YYYY-MM-DD)
+     */
+    public String getDate() {
+        return date.toString();
+    }
+
+    /**
+     * Returns the start time of the treatment as a string.
+     *
+     * @return start time in format "HH:mm"
+     */
+    public String getBegin() {
+        return begin.toString();
+    }
+
+    /**
+     * Returns the end time of the treatment as a string.
+     *
+     * @return end time in format "HH:mm"
+     */
+    public String getEnd() {
+        return end.toString();
+    }
+
+    /**
+     * Returns the description of the treatment.
+     *
+     * @return description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the status of the treatment as label.
+     *
+     * @return "Archived" or "Active"
+     */
+    public String getStatus() {
+        return Treatment.getStatusLabel(status);
+    }
+}
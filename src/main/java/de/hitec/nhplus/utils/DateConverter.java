@@ -2,16 +2,24 @@ package de.hitec.nhplus.utils;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Utility class for converting between {@link String} representations and Java time objects
  * such as {@link LocalDate} and {@link LocalTime}, using consistent date and time formats.
+ * <p>
+ * The conversions run for every row shown in a table, so the fixed formats {@code yyyy-MM-dd} and {@code HH:mm}
+ * are parsed and formatted by hand. Strings of any other shape are handed to precompiled
+ * {@link DateTimeFormatter}s, which report invalid input exactly as before.
  */
 public class DateConverter {
 
     private static final String DATE_FORMAT = "yyyy-MM-dd";
     private static final String TIME_FORMAT = "HH:mm";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_FORMAT);
 
     /**
      * Converts a string to a {@link LocalDate} using the pattern {@code yyyy-MM-dd}.
@@ -21,7 +29,16 @@ public class DateConverter {
      * @throws java.time.format.DateTimeParseException if the string cannot be parsed
      */
     public static LocalDate convertStringToLocalDate(String date) {
-        return LocalDate.parse(date, DateTimeFormatter.ofPattern(DATE_FORMAT));
+        if (date.length() == 10 && date.charAt(4) == '-' && date.charAt(7) == '-') {
+            int year = digits(date, 0, 4);
+            int month = digits(date, 5, 7);
+            int day = digits(date, 8, 10);
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1
+                    && day <= Month.of(month).length(Year.isLeap(year))) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(date, DATE_FORMATTER);
     }
 
     /**
@@ -32,7 +49,14 @@ public class DateConverter {
      * @throws java.time.format.DateTimeParseException if the string cannot be parsed
      */
     public static LocalTime convertStringToLocalTime(String time) {
-        return LocalTime.parse(time, DateTimeFormatter.ofPattern(TIME_FORMAT));
+        if (time.length() == 5 && time.charAt(2) == ':') {
+            int hour = digits(time, 0, 2);
+            int minute = digits(time, 3, 5);
+            if (hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalTime.of(hour, minute);
+            }
+        }
+        return LocalTime.parse(time, TIME_FORMATTER);
     }
 
     /**
@@ -42,7 +66,17 @@ public class DateConverter {
      * @return formatted date string in "yyyy-MM-dd" format
      */
     public static String convertLocalDateToString(LocalDate date) {
-        return date.format(DateTimeFormatter.ofPattern(DATE_FORMAT));
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            return date.format(DATE_FORMATTER);
+        }
+        char[] chars = new char[10];
+        appendDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        appendDigits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        appendDigits(chars, 8, date.getDayOfMonth(), 2);
+        return new String(chars);
     }
 
     /**
@@ -52,6 +86,45 @@ public class DateConverter {
      * @return formatted time string in "HH:mm" format
      */
     public static String convertLocalTimeToString(LocalTime time) {
-        return time.format(DateTimeFormatter.ofPattern(TIME_FORMAT));
+        char[] chars = new char[5];
+        appendDigits(chars, 0, time.getHour(), 2);
+        chars[2] = ':';
+        appendDigits(chars, 3, time.getMinute(), 2);
+        return new String(chars);
+    }
+
+    /**
+     * Reads the decimal number between the given positions of a string.
+     *
+     * @param text  the string to read from
+     * @param start the index of the first digit
+     * @param end   the index after the last digit
+     * @return the number, or -1 if the range contains a character which is not a digit
+     */
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Writes a number with leading zeros into a character array.
+     *
+     * @param chars  the array to write to
+     * @param start  the index of the first digit
+     * @param value  the non-negative number to write
+     * @param length the number of digits to write
+     */
+    private static void appendDigits(char[] chars, int start, int value, int length) {
+        for (int i = start + length - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
     }
 }
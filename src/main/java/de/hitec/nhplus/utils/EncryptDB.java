@@ -2,9 +2,11 @@ package de.hitec.nhplus.utils;
 
 import de.hitec.nhplus.datastorage.ConnectionBuilder;
 
+import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HexFormat;
 
 /**
  * Utility class to handle encryption of the SQLite database.
@@ -12,6 +14,10 @@ import java.sql.Statement;
  * This class attempts to encrypt the database by applying a key using PRAGMA statements.
  * If the database is already encrypted, it detects this and informs the user.
  * </p>
+ * <p>
+ * Started with the argument <code>raw-key</code>, it converts a database keyed with the passphrase
+ * {@code SQLCIPHER_KEY} to the pre-derived key {@code SQLCIPHER_RAW_KEY}.
+ * </p>
  */
 public class EncryptDB {
 
@@ -19,12 +25,17 @@ public class EncryptDB {
      * Main entry point of the utility.
      * <p>
      * When run, this method attempts to encrypt the database if it is not already encrypted.
+     * With the argument <code>raw-key</code> the database is converted to the raw key instead.
      * </p>
      *
-     * @param args command line arguments (not used)
+     * @param args command line arguments, optionally <code>raw-key</code>
      */
     public static void main(String[] args) {
-        encryptDatabaseIfNeeded();
+        if (args.length > 0 && args[0].equals("raw-key")) {
+            migrateToRawKey();
+        } else {
+            encryptDatabaseIfNeeded();
+        }
     }
 
     /**
@@ -44,7 +55,7 @@ public class EncryptDB {
             try {
                 statement.executeQuery("SELECT count(*) FROM sqlite_master;");
 
-                statement.execute("PRAGMA rekey = '" + ConnectionBuilder.DB_PASSWORD + "';");
+                statement.execute("PRAGMA rekey = " + keyLiteral() + ";");
                 System.out.println("✔ Datenbank wurde verschlüsselt.");
             } catch (SQLException e) {
                 System.out.println("Datenbank scheint bereits verschlüsselt zu sein.");
@@ -54,4 +65,68 @@ public class EncryptDB {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Converts a database keyed with the passphrase to the raw key of {@code SQLCIPHER_RAW_KEY}.
+     * <p>
+     * The database is opened with the passphrase and rekeyed with the raw key. Afterwards it is opened again with
+     * the raw key to make sure the conversion worked. If no raw key is configured, a randomly generated one is
+     * suggested and the database is left untouched.
+     * </p>
+     */
+    private static void migrateToRawKey() {
+        if (!ConnectionBuilder.usesRawKey()) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            System.out.println("SQLCIPHER_RAW_KEY ist nicht gesetzt. Vorschlag für die .env-Datei:");
+            System.out.println("SQLCIPHER_RAW_KEY=" + HexFormat.of().formatHex(key));
+            return;
+        }
+
+        try (Connection connection = ConnectionBuilder.openPassphraseConnection();
+             Statement statement = connection.createStatement()) {
+            try {
+                statement.executeQuery("SELECT count(*) FROM sqlite_master;").close();
+            } catch (SQLException e) {
+                System.out.println("Datenbank lässt sich nicht mit SQLCIPHER_KEY öffnen. " +
+                        "Sie ist bereits umgestellt oder das Passwort ist falsch.");
+                return;
+            }
+            // A database in WAL mode cannot be rekeyed; the profile switches it back when the application starts.
+            statement.execute("PRAGMA journal_mode = DELETE;");
+            statement.execute("PRAGMA rekey = " + keyLiteral() + ";");
+        } catch (SQLException e) {
+            System.out.println("Fehler beim Umstellen der Datenbank auf den Rohschlüssel.");
+            e.printStackTrace();
+            return;
+        }
+
+        Connection connection = ConnectionBuilder.getConnection();
+        if (connection == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT count(*) FROM sqlite_master;").close();
+            System.out.println("✔ Datenbank wurde auf den Rohschlüssel umgestellt.");
+        } catch (SQLException e) {
+            System.out.println("Datenbank lässt sich nach dem Umstellen nicht mit SQLCIPHER_RAW_KEY öffnen.");
+            e.printStackTrace();
+        } finally {
+            ConnectionBuilder.closeConnection();
+        }
+    }
+
+    /**
+     * Quotes the configured key for <code>PRAGMA rekey</code>. A raw key in the form <code>x'...'</code> has to be
+     * enclosed in double quotes, a passphrase in single quotes.
+     *
+     * @return the key as SQL literal
+     */
+    private static String keyLiteral() {
+        String key = ConnectionBuilder.getKey();
+        if (ConnectionBuilder.usesRawKey()) {
+            return "\"" + key + "\"";
+        }
+        return "'" + key.replace("'", "''") + "'";
+    }
 }
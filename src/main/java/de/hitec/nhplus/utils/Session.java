@@ -0,0 +1,121 @@
+package de.hitec.nhplus.utils;
+
+import de.hitec.nhplus.model.Person;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The session of a logged-in user, created and expired by the {@link SessionManager}.
+ * <p>
+ * Besides the user, a session holds attributes, e.g. permissions computed once per login. Sessions are shared
+ * between threads; all methods are thread-safe.
+ */
+public class Session {
+
+    private final String id;
+    private final String accountKey;
+    private final Person user;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile long lastAccessNanos;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new session, which counts as accessed now.
+     *
+     * @param id         the unique id of the session.
+     * @param accountKey identifies the account of the user, e.g. <code>admin:1</code>.
+     * @param user       the logged-in user.
+     */
+    Session(String id, String accountKey, Person user) {
+        this.id = id;
+        this.accountKey = accountKey;
+        this.user = user;
+        this.lastAccessNanos = SessionManager.clock.getAsLong();
+    }
+
+    /**
+     * Returns the id of this session.
+     *
+     * @return the id, which is hard to guess.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the user of this session.
+     *
+     * @return the logged-in admin or nurse.
+     */
+    public Person getUser() {
+        return user;
+    }
+
+    /**
+     * Returns an attribute of this session.
+     *
+     * @param name the name of the attribute.
+     * @return the value, or {@code null} if the attribute is not set.
+     */
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * Sets an attribute of this session.
+     *
+     * @param name  the name of the attribute.
+     * @param value the value; {@code null} removes the attribute.
+     */
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Returns an attribute of this session, computing and storing it first if it is not set yet.
+     *
+     * @param name     the name of the attribute.
+     * @param function computes the value from the user of the session.
+     * @param <V>      the type of the value.
+     * @return the value of the attribute.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V computeAttributeIfAbsent(String name, Function<Person, V> function) {
+        return (V) attributes.computeIfAbsent(name, key -> function.apply(user));
+    }
+
+    /**
+     * Indicates whether this session has been closed by a logout or has expired.
+     *
+     * @return {@code true} if the session can no longer be used.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Records an activity of the user, which postpones the expiry of this session.
+     */
+    void touch() {
+        lastAccessNanos = SessionManager.clock.getAsLong();
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    String getAccountKey() {
+        return accountKey;
+    }
+
+    void close() {
+        closed = true;
+        attributes.clear();
+    }
+}
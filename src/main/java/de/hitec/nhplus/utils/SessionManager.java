@@ -1,45 +1,310 @@
 package de.hitec.nhplus.utils;
 
+import de.hitec.nhplus.model.Admin;
+import de.hitec.nhplus.model.Nurse;
 import de.hitec.nhplus.model.Person;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 
 /**
- * Manages the user session by storing the currently logged-in user.
+ * Manages the sessions of the logged-in users.
+ * <p>
+ * Any number of users can be logged in at the same time. Their sessions are kept in a concurrent map by session id,
+ * so many terminals or threads can share one process. A session expires after {@code SESSION_IDLE_MINUTES} minutes
+ * without activity (30 by default, set in the <code>.env</code> file). Recording an activity only stores a
+ * timestamp; the expiry is checked by a timer wheel of {@link #WHEEL_SLOTS} slots, which every
+ * {@link #TICK_SECONDS} seconds looks at the sessions due in the current slot and moves sessions which have been
+ * active in the meantime to the slot of their new deadline.
  * <p>
- * This class provides static methods to set, get, and clear the current user session.
- * It acts as a simple session holder within the application runtime.
- * </p>
+ * On a terminal with a single window, one of the sessions is the current one, see {@link #getCurrentUser()}. Logging
+ * in with an account which still has an open session switches back to that session, including its attributes,
+ * so users can take turns at a ward terminal without logging out.
  */
 public class SessionManager {
-    private static Person currentUser;
+
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+    private static final int WHEEL_SLOTS = 64;
+    private static final long TICK_SECONDS = 15;
+    static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(TICK_SECONDS);
+
+    private static final Dotenv dotenv = Dotenv.configure()
+            .directory("src/main/resources")
+            .ignoreIfMissing()
+            .load();
+    static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(dotenv.get("SESSION_IDLE_MINUTES", "").isBlank()
+            ? DEFAULT_IDLE_MINUTES : Long.parseLong(dotenv.get("SESSION_IDLE_MINUTES").trim()));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private static final Map<String, Session> sessionsByAccount = new ConcurrentHashMap<>();
+    private static final List<Consumer<Session>> expiryListeners = new CopyOnWriteArrayList<>();
+
+    private static final List<Set<Session>> wheel = new ArrayList<>(WHEEL_SLOTS);
 
     /**
-     * Sets the current user for the session.
+     * The source of the time of activities and ticks, in the units of {@link System#nanoTime()}; replaced in tests.
+     */
+    static volatile LongSupplier clock = System::nanoTime;
+
+    private static long lastTick = clock.getAsLong() / TICK_NANOS;
+    private static ScheduledExecutorService timer;
+
+    private static volatile Session current;
+
+    static {
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Opens a session for the given user and makes it the current one. If the user still has an open session, that
+     * session is reused.
      *
      * @param user the {@link Person} object representing the logged-in user;
      *             passing {@code null} will clear the current user
      */
     public static void setCurrentUser(Person user) {
-        currentUser = user;
+        if (user == null) {
+            clearSession();
+            return;
+        }
+        current = open(user);
     }
 
     /**
-     * Retrieves the current user of the session.
+     * Retrieves the user of the current session.
      *
      * @return the {@link Person} object representing the current user,
-     *         or {@code null} if no user is currently set
+     *         or {@code null} if no user is logged in or the session has expired
      */
     public static Person getCurrentUser() {
-        return currentUser;
+        Session session = current;
+        return session == null || session.isClosed() ? null : session.getUser();
     }
 
     /**
-     * Clears the current session by removing the current user.
+     * Returns the current session.
+     *
+     * @return the current session, or {@code null} if no user is logged in or the session has expired.
+     */
+    public static Session getCurrentSession() {
+        Session session = current;
+        return session == null || session.isClosed() ? null : session;
+    }
+
+    /**
+     * Closes the current session.
      * <p>
      * After calling this method, {@link #getCurrentUser()} will return {@code null}.
      * </p>
      */
     public static void clearSession() {
-        currentUser = null;
+        Session session = current;
+        current = null;
+        if (session != null) {
+            close(session.getId());
+        }
+    }
+
+    /**
+     * Records an activity in the current session, which postpones its expiry. Cheap enough to be called for every
+     * input event.
+     */
+    public static void touchCurrentSession() {
+        Session session = current;
+        if (session != null) {
+            session.touch();
+        }
+    }
+
+    /**
+     * Makes another open session the current one, e.g. to switch the user of a terminal.
+     *
+     * @param sessionId the id of the session.
+     * @return {@code true} if the session is open and now the current one.
+     */
+    public static boolean switchTo(String sessionId) {
+        Session session = get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        current = session;
+        return true;
+    }
+
+    /**
+     * Opens a session for the given user, or returns the user's session if it is still open. Does not change the
+     * current session.
+     *
+     * @param user the logged-in admin or nurse.
+     * @return the open session of the user.
+     */
+    public static Session open(Person user) {
+        String accountKey = accountKey(user);
+        Session session = sessionsByAccount.compute(accountKey, (key, existing) -> {
+            if (existing != null && !existing.isClosed()) {
+                return existing;
+            }
+            Session created = new Session(newSessionId(), key, user);
+            sessions.put(created.getId(), created);
+            schedule(created);
+            return created;
+        });
+        session.touch();
+        startTimer();
+        return session;
+    }
+
+    /**
+     * Looks up an open session and records an activity in it.
+     *
+     * @param sessionId the id of the session.
+     * @return the session, or {@code null} if there is no open session with this id.
+     */
+    public static Session get(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null || session.isClosed()) {
+            return null;
+        }
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Closes a session, e.g. at logout.
+     *
+     * @param sessionId the id of the session.
+     */
+    public static void close(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            sessionsByAccount.remove(session.getAccountKey(), session);
+            session.close();
+        }
+    }
+
+    /**
+     * Returns all open sessions, e.g. to offer a switch to another user.
+     *
+     * @return a snapshot of the open sessions.
+     */
+    public static Collection<Session> getSessions() {
+        return List.copyOf(sessions.values());
+    }
+
+    /**
+     * Registers a listener which is called with every session expired for inactivity. The listener is called on the
+     * timer thread.
+     *
+     * @param listener the listener.
+     */
+    public static void addExpiryListener(Consumer<Session> listener) {
+        expiryListeners.add(listener);
+    }
+
+    /**
+     * Returns the key identifying the account of a user, as admins and nurses have separate ids.
+     *
+     * @param user the admin or nurse.
+     * @return e.g. <code>admin:1</code> or <code>nurse:3</code>.
+     */
+    private static String accountKey(Person user) {
+        if (user instanceof Admin admin) {
+            return "admin:" + admin.getAid();
+        }
+        if (user instanceof Nurse nurse) {
+            return "nurse:" + nurse.getNid();
+        }
+        throw new IllegalArgumentException("Nur Admins und Pflegekräfte können sich anmelden.");
+    }
+
+    private static String newSessionId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Starts the timer of the wheel. Calling the method again has no effect.
+     */
+    private static synchronized void startTimer() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("sessions").daemon().factory());
+        timer.scheduleAtFixedRate(SessionManager::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Puts a session into the slot of the tick in which it expires if it stays inactive. A deadline more than one
+     * revolution ahead is simply checked again after a revolution.
+     *
+     * @param session the session to schedule.
+     */
+    private static synchronized void schedule(Session session) {
+        long deadlineTick = (session.getLastAccessNanos() + IDLE_NANOS) / TICK_NANOS;
+        long tick = Math.max(deadlineTick, lastTick + 1);
+        wheel.get((int) Math.floorMod(tick, (long) WHEEL_SLOTS)).add(session);
+    }
+
+    /**
+     * Advances the wheel to the current time. Sessions due in the passed slots are expired if they have been
+     * inactive for the idle time, otherwise they are scheduled again.
+     */
+    static void tick() {
+        List<Session> due = new ArrayList<>();
+        long now;
+        synchronized (SessionManager.class) {
+            now = clock.getAsLong();
+            long nowTick = now / TICK_NANOS;
+            long from = Math.max(lastTick + 1, nowTick - WHEEL_SLOTS + 1);
+            for (long tick = from; tick <= nowTick; tick++) {
+                Set<Session> slot = wheel.get((int) Math.floorMod(tick, (long) WHEEL_SLOTS));
+                due.addAll(slot);
+                slot.clear();
+            }
+            lastTick = nowTick;
+        }
+        for (Session session : due) {
+            if (session.isClosed()) {
+                continue;
+            }
+            if (now - session.getLastAccessNanos() >= IDLE_NANOS) {
+                expire(session);
+            } else {
+                schedule(session);
+            }
+        }
+    }
+
+    private static void expire(Session session) {
+        if (current == session) {
+            current = null;
+        }
+        close(session.getId());
+        for (Consumer<Session> listener : expiryListeners) {
+            try {
+                listener.accept(session);
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
+            }
+        }
     }
-}
\ No newline at end of file
+}
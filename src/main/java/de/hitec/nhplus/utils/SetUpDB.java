@@ -1,6 +1,5 @@
 package de.hitec.nhplus.utils;
 
-import at.favre.lib.crypto.bcrypt.BCrypt;
 import de.hitec.nhplus.datastorage.*;
 import de.hitec.nhplus.model.Admin;
 import de.hitec.nhplus.model.Nurse;
@@ -24,7 +23,7 @@ public class SetUpDB {
 
     /**
      * This method wipes the database by dropping the tables. Then the method calls DDL statements to build it up from
-     * scratch and DML statements to fill the database with hard coded test data.
+     * scratch, applies all migrations of {@link SchemaMigrator} and fills the database with hard coded test data.
      */
     public static void setUpDb() {
         Connection connection = ConnectionBuilder.getConnection();
@@ -36,20 +35,27 @@ public class SetUpDB {
         SetUpDB.setUpTablePatientArchive(connection);
         SetUpDB.setUpTableTreatment(connection);
         SetUpDB.setUpTableAdmin(connection);
+        try {
+            SchemaMigrator.migrate();
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
         SetUpDB.setUpPatients();
         SetUpDB.setUpNurses();
         SetUpDB.setUpAdmins();
-        SetUpDB.setUpTreatmentArchive();
-        SetUpDB.setUpPatientArchive();
+        SetUpDB.setUpTreatmentArchive(SetUpDB.setUpPatientArchive());
         SetUpDB.setUpTreatments();
 
     }
 
     /**
-     * This method wipes the database by dropping the tables.
+     * This method wipes the database by dropping the tables and resets the schema version, so all migrations are
+     * applied again.
      */
     public static void wipeDb(Connection connection) {
         try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS treatment_fts");
+            statement.execute("DROP TABLE IF EXISTS treatment_archive_fts");
             statement.execute("DROP TABLE patient");
             statement.execute("DROP TABLE nurse");
             statement.execute("DROP TABLE treatment");
@@ -59,6 +65,11 @@ public class SetUpDB {
         } catch (SQLException exception) {
             System.out.println(exception.getMessage());
         }
+        try {
+            SchemaMigrator.resetVersion(connection);
+        } catch (SQLException exception) {
+            System.out.println(exception.getMessage());
+        }
     }
 
     /**
@@ -159,8 +170,7 @@ public class SetUpDB {
             remark TEXT NOT NULL,
             status INTEGER NOT NULL,
             delete_date TEXT,
-            comment TEXT NOT NULL,
-            FOREIGN KEY (pid) REFERENCES patient (pid) ON DELETE CASCADE
+            comment TEXT NOT NULL
         );
     """;
         final String TRIGGER_SQL = """
@@ -221,12 +231,12 @@ public class SetUpDB {
     private static void setUpPatients() {
         try {
             PatientDao dao = DaoFactory.getDaoFactory().createPatientDAO();
-            dao.create(new Patient("Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", true));
-            dao.create(new Patient("Martina", "Gerdsen", convertStringToLocalDate("1954-08-12"), "5", "010", true));
-            dao.create(new Patient("Gertrud", "Franzen", convertStringToLocalDate("1949-04-16"), "3", "002", true));
-            dao.create(new Patient("Ahmet", "Yilmaz", convertStringToLocalDate("1941-02-22"), "3", "013", true));
-            dao.create(new Patient("Hans", "Neumann", convertStringToLocalDate("1955-12-12"), "2", "001", true));
-            dao.create(new Patient("Elisabeth", "Müller", convertStringToLocalDate("1958-03-07"), "5", "110", true));
+            dao.create(new Patient("Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", false));
+            dao.create(new Patient("Martina", "Gerdsen", convertStringToLocalDate("1954-08-12"), "5", "010", false));
+            dao.create(new Patient("Gertrud", "Franzen", convertStringToLocalDate("1949-04-16"), "3", "002", false));
+            dao.create(new Patient("Ahmet", "Yilmaz", convertStringToLocalDate("1941-02-22"), "3", "013", false));
+            dao.create(new Patient("Hans", "Neumann", convertStringToLocalDate("1955-12-12"), "2", "001", false));
+            dao.create(new Patient("Elisabeth", "Müller", convertStringToLocalDate("1958-03-07"), "5", "110", false));
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -242,7 +252,7 @@ public class SetUpDB {
         try {
             NurseDao dao = DaoFactory.getDaoFactory().createNurseDao();
             String plainPassword = "Nurse123";
-            String bcryptHashString = BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
+            String bcryptHashString = CredentialService.hashPassword(plainPassword);
             dao.create(new Nurse("Alice",  "Hansen", "017802365843", bcryptHashString));
             dao.create(new Nurse("Bob", "Baumeister", "016590754674", bcryptHashString));
             dao.create(new Nurse("Egon", "Kowalski", "015901857037", bcryptHashString));
@@ -263,7 +273,7 @@ public class SetUpDB {
             AdminDao dao = DaoFactory.getDaoFactory().createAdminDao();
 
             String plainPassword = "Admin123";
-            String bcryptHashString = BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
+            String bcryptHashString = CredentialService.hashPassword(plainPassword);
             dao.create(new Admin("Admin", "Admin", bcryptHashString));        } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -290,21 +300,32 @@ public class SetUpDB {
         }
     }
 
-    private static void setUpTreatmentArchive() {
+    private static void setUpTreatmentArchive(long pid) {
         try {
             TreatmentArchiveDao dao = DaoFactory.getDaoFactory().createTreatmentArchiveDao();
-            dao.create(new Treatment(11, 2, convertStringToLocalDate("2023-04-09"), convertStringToLocalTime("11:00"), convertStringToLocalTime("11:30"), "Waschen", "Waschen per Dusche auf einem Stuhl; Patientin gewendet;", false, convertStringToLocalDate("2023-06-09"), ""));
+            dao.create(new Treatment(11, pid, convertStringToLocalDate("2023-04-09"), convertStringToLocalTime("11:00"), convertStringToLocalTime("11:30"), "Waschen", "Waschen per Dusche auf einem Stuhl; Patient gewendet;", false, convertStringToLocalDate("2023-06-09"), ""));
         } catch (Exception exception) {
             exception.printStackTrace();
         }
     }
 
-    private static void setUpPatientArchive() {
+    /**
+     * Archives a patient the way the application does: the patient is created, copied into the archive with its id
+     * and deleted, so the id is never handed out to another patient.
+     *
+     * @return the id of the archived patient
+     */
+    private static long setUpPatientArchive() {
         try {
+            PatientDao patientDao = DaoFactory.getDaoFactory().createPatientDAO();
             ArchivePatientDao dao = DaoFactory.getDaoFactory().createArchivePatientDao();
-            dao.create(new Patient(1, "Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", true, convertStringToLocalDate("2023-09-01")));
+            Patient patient = patientDao.create(new Patient("Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", false));
+            dao.create(new Patient(patient.getPid(), "Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", true, convertStringToLocalDate("2023-09-01")));
+            patientDao.deleteById(patient.getPid());
+            return patient.getPid();
         } catch (Exception exception) {
             exception.printStackTrace();
+            return 0;
         }
     }
 
@@ -0,0 +1,131 @@
+package de.hitec.nhplus.datastorage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the open addressing of {@link LongMap}: probing and backward-shift deletion of colliding keys, also across
+ * the end of the table, the separate slot of the key 0 and the growth of the table.
+ */
+class LongMapTest {
+
+    private static final int INITIAL_MASK = 15;
+
+    @Test
+    void storesTheKeyZeroBesideOtherKeys() {
+        LongMap<String> map = new LongMap<>();
+        assertNull(map.get(0));
+        assertNull(map.put(0, "zero"));
+        map.put(1, "one");
+        assertEquals("zero", map.get(0));
+        assertEquals(2, map.size());
+        assertEquals("zero", map.put(0, "null"));
+        assertEquals(2, map.size());
+        assertEquals("null", map.remove(0));
+        assertNull(map.remove(0));
+        assertNull(map.get(0));
+        assertEquals("one", map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void findsCollidingKeysAfterRemovals() {
+        List<Long> keys = keysWithHome(3, 5);
+        LongMap<Long> map = new LongMap<>();
+        for (long key : keys) {
+            map.put(key, key);
+        }
+        assertEquals(keys.get(0), map.remove(keys.get(0)));
+        assertEquals(keys.get(2), map.remove(keys.get(2)));
+        assertNull(map.get(keys.get(0)));
+        assertNull(map.get(keys.get(2)));
+        for (long key : List.of(keys.get(1), keys.get(3), keys.get(4))) {
+            assertEquals(key, map.get(key));
+        }
+        map.put(keys.get(0), -1L);
+        assertEquals(-1L, map.get(keys.get(0)));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void shiftsBackAcrossTheEndOfTheTable() {
+        List<Long> wrapping = keysWithHome(INITIAL_MASK, 3);
+        List<Long> atStart = keysWithHome(0, 2);
+        LongMap<Long> map = new LongMap<>();
+        // The keys of the last slot fill it and wrap around to the first slots, before the keys of the first slot.
+        for (long key : wrapping) {
+            map.put(key, key);
+        }
+        for (long key : atStart) {
+            map.put(key, key);
+        }
+        map.remove(wrapping.get(0));
+        for (long key : List.of(wrapping.get(1), wrapping.get(2), atStart.get(0), atStart.get(1))) {
+            assertEquals(key, map.get(key));
+        }
+        map.remove(atStart.get(0));
+        for (long key : List.of(wrapping.get(1), wrapping.get(2), atStart.get(1))) {
+            assertEquals(key, map.get(key));
+        }
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void keepsAllEntriesWhenGrowing() {
+        LongMap<Long> map = new LongMap<>();
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(key, map.get(key * 31));
+        }
+        assertEquals(10_000, map.values().size());
+        assertNull(map.get(7));
+    }
+
+    @Test
+    void behavesLikeAHashMap() {
+        Random random = new Random(42);
+        LongMap<Integer> map = new LongMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(300) - 20;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, i), map.put(key, i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        List<Integer> values = new ArrayList<>(map.values());
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+    }
+
+    /**
+     * Finds keys whose home slot in a table of the initial capacity is the given slot.
+     *
+     * @param slot  the home slot.
+     * @param count the number of keys to find.
+     * @return the keys, none of them 0.
+     */
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((LongMap.hash(key) & INITIAL_MASK) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,83 @@
+package de.hitec.nhplus.datastorage;
+
+import de.hitec.nhplus.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the prefix lookup of {@link PatientIndex}: umlauts, accents and the sharp s in names and typed text, both
+ * orders of surname and first name, the limit and the updates of written and deleted patients.
+ */
+class PatientIndexTest {
+
+    private static final Patient MUELLER = patient(1, "Hans", "Müller");
+    private static final Patient MULLER = patient(2, "Anna", "Muller");
+    private static final Patient STRAUSS = patient(3, "Jörg", "Strauß");
+    private static final Patient HOFMANN = patient(4, "Heinz", "Hofmann");
+    private static final Patient JOSE = patient(5, "José", "Álvarez");
+
+    private final PatientIndex index = new PatientIndex(List.of(MUELLER, MULLER, STRAUSS, HOFMANN, JOSE));
+
+    @Test
+    void findsSurnamesWithAndWithoutUmlauts() throws SQLException {
+        assertEquals(List.of(MULLER, MUELLER), this.index.find("mül", 10));
+        assertEquals(List.of(MULLER, MUELLER), this.index.find("mul", 10));
+        assertEquals(List.of(MULLER, MUELLER), this.index.find("  MÜLLER ", 10));
+        assertEquals(List.of(MUELLER), this.index.find("Müller H", 10));
+        assertEquals(List.of(STRAUSS), this.index.find("jorg", 10));
+    }
+
+    @Test
+    void findsTheSharpSAndAccents() throws SQLException {
+        assertEquals(List.of(STRAUSS), this.index.find("strauss", 10));
+        assertEquals(List.of(STRAUSS), this.index.find("Strauß", 10));
+        assertEquals(List.of(JOSE), this.index.find("alv", 10));
+        assertEquals(List.of(JOSE), this.index.find("José Á", 10));
+    }
+
+    @Test
+    void findsBothOrdersOfTheNames() throws SQLException {
+        assertEquals(List.of(MUELLER), this.index.find("hans m", 10));
+        assertEquals(List.of(MUELLER), this.index.find("hans  müller", 10));
+        assertEquals(List.of(MUELLER), this.index.find("muller hans", 10));
+        assertEquals(List.of(STRAUSS), this.index.find("jörg strauss", 10));
+        assertTrue(this.index.find("hans muller x", 10).isEmpty());
+        assertTrue(this.index.find("ans", 10).isEmpty());
+    }
+
+    @Test
+    void returnsEachPatientOnceAndRespectsTheLimit() throws SQLException {
+        // Both keys of Heinz Hofmann start with "h", as does the first name of Hans Müller.
+        assertEquals(List.of(MUELLER, HOFMANN), this.index.find("h", 10));
+        assertEquals(List.of(MUELLER), this.index.find("h", 1));
+        assertEquals(5, this.index.find("", 10).size());
+        assertTrue(this.index.find("m", 0).isEmpty());
+    }
+
+    @Test
+    void followsWrittenAndDeletedPatients() throws SQLException {
+        Patient renamed = patient(1, "Hans", "Maier");
+        this.index.written(renamed);
+        assertEquals(List.of(MULLER), this.index.find("mül", 10));
+        assertEquals(List.of(renamed), this.index.find("hans m", 10));
+
+        Patient added = patient(6, "Käthe", "Özdemir");
+        this.index.written(added);
+        assertEquals(List.of(added), this.index.find("oz", 10));
+        assertEquals(List.of(added), this.index.find("kathe", 10));
+
+        this.index.deleted(3);
+        assertTrue(this.index.find("strauss", 10).isEmpty());
+        assertEquals(5, this.index.find("", 10).size());
+    }
+
+    private static Patient patient(long pid, String firstName, String surname) {
+        return new Patient(pid, firstName, surname, LocalDate.of(1940, 1, 1), "3", "101", false);
+    }
+}
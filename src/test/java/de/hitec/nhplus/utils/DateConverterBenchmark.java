@@ -0,0 +1,86 @@
+package de.hitec.nhplus.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the conversions of {@link DateConverter} with the {@link DateTimeFormatter}s they replace, for the values
+ * of a table row. Run {@link #main(String[])} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateConverterBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final String dateText = "2024-02-29";
+    private final String timeText = "14:35";
+    private final LocalDate date = LocalDate.of(2024, 2, 29);
+    private final LocalTime time = LocalTime.of(14, 35);
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return DateConverter.convertStringToLocalDate(this.dateText);
+    }
+
+    @Benchmark
+    public LocalDate parseDateWithFormatter() {
+        return LocalDate.parse(this.dateText, DATE_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalTime parseTime() {
+        return DateConverter.convertStringToLocalTime(this.timeText);
+    }
+
+    @Benchmark
+    public LocalTime parseTimeWithFormatter() {
+        return LocalTime.parse(this.timeText, TIME_FORMATTER);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateConverter.convertLocalDateToString(this.date);
+    }
+
+    @Benchmark
+    public String formatDateWithFormatter() {
+        return this.date.format(DATE_FORMATTER);
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return DateConverter.convertLocalTimeToString(this.time);
+    }
+
+    @Benchmark
+    public String formatTimeWithFormatter() {
+        return this.time.format(TIME_FORMATTER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DateConverterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package de.hitec.nhplus.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the hand-written parsing and formatting of {@link DateConverter} against the {@link DateTimeFormatter}s it
+ * replaces, which define the expected results, including the resolution and rejection of invalid input.
+ */
+class DateConverterTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Test
+    void roundTripsEveryDateOfAFullLeapYearCycle() {
+        LocalDate end = LocalDate.of(2300, 1, 1);
+        for (LocalDate date = LocalDate.of(1900, 1, 1); date.isBefore(end); date = date.plusDays(1)) {
+            String text = DateConverter.convertLocalDateToString(date);
+            assertEquals(date.format(DATE_FORMATTER), text);
+            assertEquals(date, DateConverter.convertStringToLocalDate(text));
+        }
+    }
+
+    @Test
+    void roundTripsEveryMinuteOfTheDay() {
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            String text = DateConverter.convertLocalTimeToString(time);
+            assertEquals(time.format(TIME_FORMATTER), text);
+            assertEquals(time, DateConverter.convertStringToLocalTime(text));
+        }
+    }
+
+    @Test
+    void parsesThe29thOfFebruaryInLeapYears() {
+        assertEquals(LocalDate.of(2024, 2, 29), DateConverter.convertStringToLocalDate("2024-02-29"));
+        assertEquals(LocalDate.of(2000, 2, 29), DateConverter.convertStringToLocalDate("2000-02-29"));
+    }
+
+    @Test
+    void resolvesThe29thOfFebruaryInOtherYearsLikeTheFormatter() {
+        assertEquals(LocalDate.of(2023, 2, 28), DateConverter.convertStringToLocalDate("2023-02-29"));
+        assertEquals(LocalDate.of(1900, 2, 28), DateConverter.convertStringToLocalDate("1900-02-29"));
+        assertEquals(LocalDate.of(2023, 2, 28), DateConverter.convertStringToLocalDate("2023-02-30"));
+    }
+
+    @Test
+    void rejectsInvalidDates() {
+        for (String text : new String[]{"2023-02-32", "2023-13-01", "2023-00-10", "2023-01-00", "0000-01-01",
+                "2023-1-01", "2023/01/01", "20230101", "abcd-ef-gh", "2023-0a-01", " 2023-01-01", ""}) {
+            assertThrows(DateTimeParseException.class, () -> DateConverter.convertStringToLocalDate(text), text);
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeMinutesAndHours() {
+        for (String text : new String[]{"12:60", "12:99", "00:75", "25:00", "99:00"}) {
+            assertThrows(DateTimeParseException.class, () -> DateConverter.convertStringToLocalTime(text), text);
+        }
+    }
+
+    @Test
+    void rejectsMalformedTimes() {
+        for (String text : new String[]{"9:30", "09:3", "12-30", "1230", "ab:cd", "-1:30", "12:30:00", ""}) {
+            assertThrows(DateTimeParseException.class, () -> DateConverter.convertStringToLocalTime(text), text);
+        }
+    }
+
+    @Test
+    void agreesWithTheFormatterOnEveryDateOfTheExpectedShape() {
+        for (int year : new int[]{0, 1, 1900, 2000, 2023, 2024, 9999}) {
+            for (int month = 0; month < 20; month++) {
+                for (int day = 0; day < 40; day++) {
+                    String text = String.format("%04d-%02d-%02d", year, month, day);
+                    assertSameOutcome(text, DateConverter::convertStringToLocalDate,
+                            value -> LocalDate.parse(value, DATE_FORMATTER));
+                }
+            }
+        }
+    }
+
+    @Test
+    void agreesWithTheFormatterOnEveryTimeOfTheExpectedShape() {
+        for (int hour = 0; hour < 100; hour++) {
+            for (int minute = 0; minute < 100; minute++) {
+                String text = String.format("%02d:%02d", hour, minute);
+                assertSameOutcome(text, DateConverter::convertStringToLocalTime,
+                        value -> LocalTime.parse(value, TIME_FORMATTER));
+            }
+        }
+    }
+
+    @Test
+    void formatsYearsBeyondFourDigitsLikeTheFormatter() {
+        for (LocalDate date : new LocalDate[]{LocalDate.of(10000, 1, 1), LocalDate.of(0, 6, 15),
+                LocalDate.of(-1, 12, 31)}) {
+            assertEquals(date.format(DATE_FORMATTER), DateConverter.convertLocalDateToString(date));
+        }
+    }
+
+    /**
+     * Checks that the given parser returns the same value as the reference, or fails whenever the reference fails.
+     *
+     * @param text      the text to parse.
+     * @param parser    the parser under test.
+     * @param reference the parser defining the expected outcome.
+     * @param <T>       the type of the parsed value.
+     */
+    private static <T> void assertSameOutcome(String text, Function<String, T> parser, Function<String, T> reference) {
+        T expected;
+        try {
+            expected = reference.apply(text);
+        } catch (DateTimeParseException exception) {
+            assertThrows(DateTimeParseException.class, () -> parser.apply(text), text);
+            return;
+        }
+        assertEquals(expected, parser.apply(text), text);
+    }
+}
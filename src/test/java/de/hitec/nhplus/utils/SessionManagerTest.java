@@ -0,0 +1,111 @@
+package de.hitec.nhplus.utils;
+
+import de.hitec.nhplus.model.Nurse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the expiry of sessions by the timer wheel of {@link SessionManager} on a simulated clock, with idle times
+ * longer than one revolution of the wheel. The clock only moves forward, so the tests share it.
+ */
+class SessionManagerTest {
+
+    private static final int WHEEL_SLOTS = 64;
+    private static final AtomicLong time = new AtomicLong(System.nanoTime());
+    private static final AtomicLong nextNid = new AtomicLong(1000);
+    private static final List<Session> expired = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void useSimulatedClock() {
+        SessionManager.clock = time::get;
+        SessionManager.addExpiryListener(expired::add);
+    }
+
+    @AfterAll
+    static void useSystemClock() {
+        SessionManager.clock = System::nanoTime;
+    }
+
+    @Test
+    void theIdleTimeSpansMoreThanOneRevolution() {
+        assertTrue(SessionManager.IDLE_NANOS > WHEEL_SLOTS * SessionManager.TICK_NANOS);
+    }
+
+    @Test
+    void expiresOnlyAfterTheIdleTimeWhenTickingEverySlot() {
+        Session session = SessionManager.open(nurse());
+        long start = time.get();
+        while (time.get() + SessionManager.TICK_NANOS < start + SessionManager.IDLE_NANOS) {
+            advance(SessionManager.TICK_NANOS);
+            assertFalse(session.isClosed());
+        }
+        advance(2 * SessionManager.TICK_NANOS);
+        assertExpired(session);
+    }
+
+    @Test
+    void expiresOnlyAfterTheIdleTimeWhenSkippingRevolutions() {
+        Session session = SessionManager.open(nurse());
+        long start = time.get();
+        advance((WHEEL_SLOTS + 3) * SessionManager.TICK_NANOS);
+        assertFalse(session.isClosed());
+        advance(start + SessionManager.IDLE_NANOS - SessionManager.TICK_NANOS - time.get());
+        assertFalse(session.isClosed());
+        assertSame(session, SessionManager.getSessions().stream()
+                .filter(open -> open.getId().equals(session.getId())).findFirst().orElse(null));
+        advance(2 * SessionManager.TICK_NANOS);
+        assertExpired(session);
+    }
+
+    @Test
+    void postponesTheExpiryOnActivity() {
+        Session session = SessionManager.open(nurse());
+        advance(SessionManager.IDLE_NANOS - SessionManager.TICK_NANOS);
+        assertSame(session, SessionManager.get(session.getId()));
+        long touched = time.get();
+        advance(SessionManager.IDLE_NANOS - SessionManager.TICK_NANOS);
+        assertFalse(session.isClosed());
+        advance(touched + SessionManager.IDLE_NANOS + SessionManager.TICK_NANOS - time.get());
+        assertExpired(session);
+    }
+
+    @Test
+    void expiresSessionsInTheSameSlotOneRevolutionApart() {
+        Session first = SessionManager.open(nurse());
+        long firstStart = time.get();
+        advance(WHEEL_SLOTS * SessionManager.TICK_NANOS);
+        Session second = SessionManager.open(nurse());
+        long secondStart = time.get();
+        advance(firstStart + SessionManager.IDLE_NANOS + SessionManager.TICK_NANOS - time.get());
+        assertExpired(first);
+        assertFalse(second.isClosed());
+        advance(secondStart + SessionManager.IDLE_NANOS + SessionManager.TICK_NANOS - time.get());
+        assertExpired(second);
+    }
+
+    private static void advance(long nanos) {
+        time.addAndGet(nanos);
+        SessionManager.tick();
+    }
+
+    private static void assertExpired(Session session) {
+        assertTrue(session.isClosed());
+        assertNull(SessionManager.get(session.getId()));
+        assertEquals(1, expired.stream().filter(session::equals).count());
+    }
+
+    private static Nurse nurse() {
+        return new Nurse(nextNid.getAndIncrement(), "Erika", "Mustermann", "0123", "");
+    }
+}